@@ -0,0 +1,25 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.AccountService.client;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.UUID;
+
+/**
+ * Réponse de GET /api/customers/{id}/exists (CustomerExistsResponse de Customer Service)
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CustomerExistsResponse(boolean exists, UUID customerId, String status, boolean kycActive) {
+
+    // Customer Service injoignable ou réponse invalide
+    public static CustomerExistsResponse error(UUID customerId) {
+        return new CustomerExistsResponse(false, customerId, "ERROR", false);
+    }
+}
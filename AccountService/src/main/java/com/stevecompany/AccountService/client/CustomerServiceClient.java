@@ -8,12 +8,13 @@ package com.stevecompany.AccountService.client;
  *
  * @author steve
  */
+import com.stevecompany.AccountService.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Map;
 import java.util.UUID;
 
 @Component
@@ -21,10 +22,13 @@ public class CustomerServiceClient {
 
     private static final Logger log = LoggerFactory.getLogger(CustomerServiceClient.class);
     private final RestTemplate restTemplate;
+    private final OperationMetrics metrics;
     private static final String CUSTOMER_SERVICE_URL = "http://CUSTOMER-SERVICE-WILLBANK";
+    private static final Tags CHECK_EXISTS = Tags.of("target", "customer-service", "operation", "checkCustomerExists");
 
-    public CustomerServiceClient(RestTemplate restTemplate) {
+    public CustomerServiceClient(RestTemplate restTemplate, OperationMetrics metrics) {
         this.restTemplate = restTemplate;
+        this.metrics = metrics;
     }
 
     public CustomerExistsResponse checkCustomerExists(UUID customerId) {
@@ -32,31 +36,16 @@ public class CustomerServiceClient {
         log.info("Calling Customer Service: {}", url);
         
         try {
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            
-            boolean exists = (Boolean) response.get("exists");
-            boolean kycActive = (Boolean) response.get("kycActive");
-            String status = (String) response.get("status");
+            CustomerExistsResponse response = metrics.record("client.calls", CHECK_EXISTS,
+                    () -> restTemplate.getForObject(url, CustomerExistsResponse.class));
             
             log.info("Customer {} - exists: {}, kycActive: {}, status: {}", 
-                    customerId, exists, kycActive, status);
+                    customerId, response.exists(), response.kycActive(), response.status());
             
-            return new CustomerExistsResponse(exists, kycActive, status);
+            return response;
         } catch (Exception e) {
             log.error("Error calling Customer Service for customer {}: {}", customerId, e.getMessage());
-            return new CustomerExistsResponse(false, false, "ERROR");
-        }
-    }
-
-    public static class CustomerExistsResponse {
-        public final boolean exists;
-        public final boolean kycActive;
-        public final String status;
-
-        public CustomerExistsResponse(boolean exists, boolean kycActive, String status) {
-            this.exists = exists;
-            this.kycActive = kycActive;
-            this.status = status;
+            return CustomerExistsResponse.error(customerId);
         }
     }
 }
\ No newline at end of file
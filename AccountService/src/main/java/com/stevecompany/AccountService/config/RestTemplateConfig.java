@@ -8,17 +8,140 @@ package com.stevecompany.AccountService.config;
  *
  * @author steve
  */
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerRequestTransformer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Client HTTP des appels vers Customer Service : pool de connexions
+ * keep-alive (Apache HttpClient 5) et délais bornés.
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * Pool partagé ; une "route" est une instance cible (hôte:port résolu par le load balancer).
+     * Métriques : httpcomponents.httpclient.pool.* (tag httpclient=inter-service).
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(
+            @Value("${http.client.max-total:200}") int maxTotal,
+            @Value("${http.client.max-per-route:50}") int maxPerRoute,
+            @Value("${http.client.connect-timeout:1s}") Duration connectTimeout,
+            @Value("${http.client.read-timeout:3s}") Duration readTimeout,
+            @Value("${http.client.time-to-live:5m}") Duration timeToLive,
+            MeterRegistry meterRegistry) {
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(timeToLive))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "inter-service")
+                .bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * Plafond de connexions par service cible (http.client.max-per-service,
+     * "service=max,..."), à la place de max-per-route. Une route Apache est une
+     * instance, connue seulement une fois choisie par le load balancer : le
+     * plafond de son service lui est appliqué à ce moment-là.
+     */
+    @Bean
+    public LoadBalancerRequestTransformer perServiceConnectionLimit(
+            PoolingHttpClientConnectionManager httpConnectionManager,
+            @Value("${http.client.max-per-service:}") String maxPerService) {
+        Map<String, Integer> limits = parseLimits(maxPerService);
+        return (request, instance) -> {
+            Integer max = limits.get(instance.getServiceId().toLowerCase(Locale.ROOT));
+            if (max != null) {
+                HttpHost target = new HttpHost(instance.isSecure() ? "https" : "http",
+                        instance.getHost(), instance.getPort());
+                HttpRoute route = new HttpRoute(target, null, instance.isSecure());
+                if (httpConnectionManager.getMaxPerRoute(route) != max) {
+                    httpConnectionManager.setMaxPerRoute(route, max);
+                }
+            }
+            return request;
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(
+            PoolingHttpClientConnectionManager httpConnectionManager,
+            @Value("${http.client.pool-timeout:500ms}") Duration poolTimeout,
+            @Value("${http.client.read-timeout:3s}") Duration readTimeout,
+            @Value("${http.client.idle-timeout:30s}") Duration idleTimeout) {
+
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // Attente max d'une connexion libre dans le pool
+                        .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                // Pas de rejeu implicite : un appel non idempotent ne doit pas être renvoyé en silence
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * Construit sans RestTemplateBuilder : l'observation est branchée à la main
+     * pour créer un span client et propager l'en-tête traceparent.
+     */
     @Bean
     @LoadBalanced
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient, ObservationRegistry observationRegistry) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        restTemplate.setObservationRegistry(observationRegistry);
+        return restTemplate;
+    }
+
+    // "account-service-willbank=50,customer-service-willbank=20"
+    private static Map<String, Integer> parseLimits(String value) {
+        Map<String, Integer> limits = new HashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("http.client.max-per-service entry must be <service>=<max>, got " + entry);
+            }
+            limits.put(entry.substring(0, separator).trim().toLowerCase(Locale.ROOT),
+                    Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+        return Map.copyOf(limits);
     }
-}
\ No newline at end of file
+}
@@ -9,6 +9,9 @@ package com.stevecompany.AccountService.controller;
  * @author steve
  */
 import com.stevecompany.AccountService.dto.AccountDTO;
+import com.stevecompany.AccountService.dto.MovementDTO;
+import com.stevecompany.AccountService.dto.MovementResultDTO;
+import com.stevecompany.AccountService.dto.TransferRequestDTO;
 import com.stevecompany.AccountService.entity.Account;
 import com.stevecompany.AccountService.security.InternalRequestValidator;
 import com.stevecompany.AccountService.service.AccountService;
@@ -29,6 +32,8 @@ import java.util.stream.Collectors;
 public class AccountController {
 
     private static final Logger log = LoggerFactory.getLogger(AccountController.class);
+    // Identifiant de l'opération chez l'appelant : un renvoi n'est appliqué qu'une fois
+    private static final String OPERATION_ID_HEADER = "X-Operation-Id";
     private final AccountService service;
     private final InternalRequestValidator validator;
 
@@ -47,6 +52,42 @@ public class AccountController {
         return ResponseEntity.status(HttpStatus.CREATED).body(AccountDTO.fromEntity(created));
     }
 
+    @PostMapping("/transfers")
+    public ResponseEntity<Map<String, Object>> transfer(
+            @RequestHeader("X-INTERNAL-TOKEN") String token,
+            @RequestHeader(value = OPERATION_ID_HEADER, required = false) String operationId,
+            @RequestBody TransferRequestDTO dto) {
+
+        log.info("Received POST /api/accounts/transfers - from: {}, to: {}, amount: {}",
+                dto.getSourceAccountId(), dto.getTargetAccountId(), dto.getAmount());
+
+        validator.validate(token);
+
+        List<Account> accounts = service.transfer(
+                dto.getSourceAccountId(), dto.getTargetAccountId(), dto.getAmount(), operationId);
+
+        return ResponseEntity.ok(Map.of(
+                "message", "Transfer applied successfully",
+                "sourceAccountId", accounts.get(0).getId(),
+                "sourceBalance", accounts.get(0).getBalance(),
+                "targetAccountId", accounts.get(1).getId(),
+                "targetBalance", accounts.get(1).getBalance()
+        ));
+    }
+
+    @PostMapping("/movements/batch")
+    public ResponseEntity<List<MovementResultDTO>> applyMovements(
+            @RequestHeader("X-INTERNAL-TOKEN") String token,
+            @RequestHeader(value = OPERATION_ID_HEADER, required = false) String operationId,
+            @RequestBody List<MovementDTO> movements) {
+
+        log.info("Received POST /api/accounts/movements/batch - {} movements", movements.size());
+
+        validator.validate(token);
+
+        return ResponseEntity.ok(service.applyMovements(movements, operationId));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<AccountDTO> get(@PathVariable UUID id) {
         log.info("Received GET /api/accounts/{}", id);
@@ -138,4 +179,46 @@ public class AccountController {
                 "newBalance", balance
         ));
     }
+
+    @PostMapping("/{id}/credit")
+    public ResponseEntity<Map<String, Object>> credit(
+            @PathVariable UUID id,
+            @RequestHeader("X-INTERNAL-TOKEN") String token,
+            @RequestHeader(value = OPERATION_ID_HEADER, required = false) String operationId,
+            @RequestBody Map<String, BigDecimal> payload) {
+
+        log.info("Received POST /api/accounts/{}/credit", id);
+
+        // Mouvement de solde : réservé aux services internes, jamais appelable sans jeton
+        validator.validate(token);
+
+        Account account = service.credit(id, payload.get("amount"), operationId);
+
+        return ResponseEntity.ok(Map.of(
+                "message", "Account credited successfully",
+                "accountId", id,
+                "newBalance", account.getBalance()
+        ));
+    }
+
+    @PostMapping("/{id}/debit")
+    public ResponseEntity<Map<String, Object>> debit(
+            @PathVariable UUID id,
+            @RequestHeader("X-INTERNAL-TOKEN") String token,
+            @RequestHeader(value = OPERATION_ID_HEADER, required = false) String operationId,
+            @RequestBody Map<String, BigDecimal> payload) {
+
+        log.info("Received POST /api/accounts/{}/debit", id);
+
+        // Mouvement de solde : réservé aux services internes, jamais appelable sans jeton
+        validator.validate(token);
+
+        Account account = service.debit(id, payload.get("amount"), operationId);
+
+        return ResponseEntity.ok(Map.of(
+                "message", "Account debited successfully",
+                "accountId", id,
+                "newBalance", account.getBalance()
+        ));
+    }
 }
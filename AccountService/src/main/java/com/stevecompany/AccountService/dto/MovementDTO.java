@@ -0,0 +1,32 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.AccountService.dto;
+
+/**
+ *
+ * @author steve
+ */
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Mouvement élémentaire d'un lot : débit seul (retrait), crédit seul (dépôt)
+ * ou débit + crédit (transfert).
+ */
+public class MovementDTO {
+    private UUID debitAccountId;
+    private UUID creditAccountId;
+    private BigDecimal amount;
+
+    // Getters & Setters
+    public UUID getDebitAccountId() { return debitAccountId; }
+    public void setDebitAccountId(UUID debitAccountId) { this.debitAccountId = debitAccountId; }
+
+    public UUID getCreditAccountId() { return creditAccountId; }
+    public void setCreditAccountId(UUID creditAccountId) { this.creditAccountId = creditAccountId; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+}
@@ -0,0 +1,36 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.AccountService.dto;
+
+/**
+ *
+ * @author steve
+ */
+public class MovementResultDTO {
+    private boolean applied;
+    private String reason;
+
+    public MovementResultDTO() {}
+
+    public MovementResultDTO(boolean applied, String reason) {
+        this.applied = applied;
+        this.reason = reason;
+    }
+
+    public static MovementResultDTO applied() {
+        return new MovementResultDTO(true, null);
+    }
+
+    public static MovementResultDTO rejected(String reason) {
+        return new MovementResultDTO(false, reason);
+    }
+
+    // Getters & Setters
+    public boolean isApplied() { return applied; }
+    public void setApplied(boolean applied) { this.applied = applied; }
+
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+}
@@ -0,0 +1,28 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.AccountService.dto;
+
+/**
+ *
+ * @author steve
+ */
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public class TransferRequestDTO {
+    private UUID sourceAccountId;
+    private UUID targetAccountId;
+    private BigDecimal amount;
+
+    // Getters & Setters
+    public UUID getSourceAccountId() { return sourceAccountId; }
+    public void setSourceAccountId(UUID sourceAccountId) { this.sourceAccountId = sourceAccountId; }
+
+    public UUID getTargetAccountId() { return targetAccountId; }
+    public void setTargetAccountId(UUID targetAccountId) { this.targetAccountId = targetAccountId; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+}
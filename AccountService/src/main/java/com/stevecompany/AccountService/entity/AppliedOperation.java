@@ -0,0 +1,46 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.AccountService.entity;
+
+/**
+ *
+ * @author steve
+ */
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Mouvement de solde déjà appliqué, identifié par l'en-tête X-Operation-Id
+ * de l'appelant : une requête renvoyée avec le même identifiant (reprise
+ * après un délai dépassé) n'est pas appliquée une seconde fois. Pour un lot
+ * de mouvements, les résultats sont conservés et renvoyés à l'identique.
+ */
+@Entity
+@Table(name = "applied_operations",
+       indexes = @Index(name = "idx_applied_operations_created_at", columnList = "created_at"))
+public class AppliedOperation {
+
+    @Id
+    @Column(length = 64)
+    private String operationId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Résultats d'un lot de mouvements (JSON), un par mouvement
+    @Lob
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String result;
+
+    // Getters & Setters
+    public String getOperationId() { return operationId; }
+    public void setOperationId(String operationId) { this.operationId = operationId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getResult() { return result; }
+    public void setResult(String result) { this.result = result; }
+}
@@ -10,26 +10,32 @@ package com.stevecompany.AccountService.event;
  */
 import com.stevecompany.AccountService.entity.Account;
 import com.stevecompany.AccountService.messaging.CustomerEventDTO;
+import com.stevecompany.AccountService.metrics.OperationMetrics;
 import com.stevecompany.AccountService.repository.AccountRepository;
+import io.micrometer.core.instrument.Tags;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ClientSuspendedEventListener {
 
+    private static final Tags TAGS = Tags.of("event", "CustomerSuspendedEvent");
     private final AccountRepository accountRepository;
+    private final OperationMetrics metrics;
 
-    public ClientSuspendedEventListener(AccountRepository accountRepository) {
+    public ClientSuspendedEventListener(AccountRepository accountRepository, OperationMetrics metrics) {
         this.accountRepository = accountRepository;
+        this.metrics = metrics;
     }
 
     @RabbitListener(queues = "customer.suspended.queue")
     public void handleCustomerSuspended(CustomerEventDTO event) {
 
-        accountRepository.findByCustomerIdAndDeletedFalse(event.getCustomerId())
-                .forEach(account -> {
-                    account.setStatus(Account.Status.FROZEN);
-                    accountRepository.save(account);
-                });
+        metrics.run("events.consumed", TAGS, () ->
+                accountRepository.findByCustomerIdAndDeletedFalse(event.getCustomerId())
+                        .forEach(account -> {
+                            account.setStatus(Account.Status.FROZEN);
+                            accountRepository.save(account);
+                        }));
     }
 }
\ No newline at end of file
@@ -10,6 +10,8 @@ package com.stevecompany.AccountService.messaging;
  */
 import com.stevecompany.AccountService.event.AccountCreatedEvent;
 import com.stevecompany.AccountService.event.AccountUpdatedEvent;
+import com.stevecompany.AccountService.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -19,28 +21,33 @@ import org.springframework.stereotype.Component;
 public class AccountEventPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(AccountEventPublisher.class);
+    private static final String EVENTS_PUBLISHED = "events.published";
     private final RabbitTemplate rabbitTemplate;
+    private final OperationMetrics metrics;
 
-    public AccountEventPublisher(RabbitTemplate rabbitTemplate) {
+    public AccountEventPublisher(RabbitTemplate rabbitTemplate, OperationMetrics metrics) {
         this.rabbitTemplate = rabbitTemplate;
+        this.metrics = metrics;
     }
 
     public void publishAccountCreated(AccountCreatedEvent event) {
         log.info("Publishing AccountCreatedEvent for account: {}", event.getAccountId());
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfig.ACCOUNT_EXCHANGE,
-                RabbitMQConfig.ACCOUNT_CREATED_ROUTING_KEY,
-                event
-        );
+        metrics.run(EVENTS_PUBLISHED, Tags.of("event", "AccountCreatedEvent", "channel", "amqp"),
+                () -> rabbitTemplate.convertAndSend(
+                        RabbitMQConfig.ACCOUNT_EXCHANGE,
+                        RabbitMQConfig.ACCOUNT_CREATED_ROUTING_KEY,
+                        event
+                ));
     }
 
     public void publishAccountUpdated(AccountUpdatedEvent event) {
         log.info("Publishing AccountUpdatedEvent for account: {} - updateType: {}", 
                 event.getAccountId(), event.getUpdateType());
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfig.ACCOUNT_EXCHANGE,
-                RabbitMQConfig.ACCOUNT_UPDATED_ROUTING_KEY,
-                event
-        );
+        metrics.run(EVENTS_PUBLISHED, Tags.of("event", "AccountUpdatedEvent", "channel", "amqp"),
+                () -> rabbitTemplate.convertAndSend(
+                        RabbitMQConfig.ACCOUNT_EXCHANGE,
+                        RabbitMQConfig.ACCOUNT_UPDATED_ROUTING_KEY,
+                        event
+                ));
     }
 }
\ No newline at end of file
@@ -9,8 +9,15 @@ package com.stevecompany.AccountService.repository;
  * @author steve
  */
 import com.stevecompany.AccountService.entity.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,4 +29,33 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
     List<Account> findByCustomerIdAndDeletedFalse(UUID customerId);
 
     Optional<Account> findByIdAndDeletedFalse(UUID id);
-}
\ No newline at end of file
+
+    /**
+     * Charge des comptes en posant un verrou d'écriture (SELECT ... FOR UPDATE).
+     * Les lignes sont verrouillées dans l'ordre de la clé primaire, ce qui donne
+     * un ordre d'acquisition identique pour tous les appelants.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids AND a.deleted = false ORDER BY a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Crédite un compte actif en une seule instruction UPDATE.
+     * Retourne le nombre de lignes modifiées (0 si compte absent ou inactif).
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE a.id = :id AND a.deleted = false AND a.status = com.stevecompany.AccountService.entity.Account.Status.ACTIVE")
+    int credit(@Param("id") UUID id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Débite un compte actif en une seule instruction UPDATE, le contrôle
+     * de provision étant fait par la base (balance >= amount).
+     * Retourne 0 si compte absent, inactif ou solde insuffisant.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE a.id = :id AND a.deleted = false AND a.status = com.stevecompany.AccountService.entity.Account.Status.ACTIVE " +
+           "AND a.balance >= :amount")
+    int debit(@Param("id") UUID id, @Param("amount") BigDecimal amount);
+}
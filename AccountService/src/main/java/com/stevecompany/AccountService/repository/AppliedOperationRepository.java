@@ -0,0 +1,42 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.AccountService.repository;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.AccountService.entity.AppliedOperation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface AppliedOperationRepository extends JpaRepository<AppliedOperation, String> {
+
+    /**
+     * Enregistre l'identifiant dans la transaction du mouvement : 1 s'il est
+     * nouveau, 0 s'il a déjà été appliqué. Une transaction concurrente avec le
+     * même identifiant fait attendre l'INSERT jusqu'à sa validation ou son annulation.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO applied_operations (operation_id, created_at) VALUES (:id, :now)",
+           nativeQuery = true)
+    int tryRecord(@Param("id") String operationId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE AppliedOperation o SET o.result = :result WHERE o.operationId = :id")
+    int storeResult(@Param("id") String operationId, @Param("result") String result);
+
+    @Query("SELECT o.result FROM AppliedOperation o WHERE o.operationId = :id")
+    Optional<String> findResult(@Param("id") String operationId);
+
+    @Modifying
+    @Query("DELETE FROM AppliedOperation o WHERE o.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
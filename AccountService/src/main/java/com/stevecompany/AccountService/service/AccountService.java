@@ -8,7 +8,10 @@ package com.stevecompany.AccountService.service;
  *
  * @author steve
  */
+import com.stevecompany.AccountService.client.CustomerExistsResponse;
 import com.stevecompany.AccountService.client.CustomerServiceClient;
+import com.stevecompany.AccountService.dto.MovementDTO;
+import com.stevecompany.AccountService.dto.MovementResultDTO;
 import com.stevecompany.AccountService.entity.Account;
 import com.stevecompany.AccountService.event.AccountCreatedEvent;
 import com.stevecompany.AccountService.event.AccountUpdatedEvent;
@@ -21,8 +24,16 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -32,28 +43,31 @@ public class AccountService {
     private final AccountRepository repository;
     private final CustomerServiceClient customerClient;
     private final AccountEventPublisher eventPublisher;
+    private final AppliedOperations appliedOperations;
 
     public AccountService(AccountRepository repository,
                           CustomerServiceClient customerClient,
-                          AccountEventPublisher eventPublisher) {
+                          AccountEventPublisher eventPublisher,
+                          AppliedOperations appliedOperations) {
         this.repository = repository;
         this.customerClient = customerClient;
         this.eventPublisher = eventPublisher;
+        this.appliedOperations = appliedOperations;
     }
 
     public Account create(Account account) {
         log.info("Creating account for customer: {}", account.getCustomerId());
         
         // 1. Vérifier que le client existe et que son KYC est ACTIVE
-        CustomerServiceClient.CustomerExistsResponse customerCheck = 
+        CustomerExistsResponse customerCheck = 
                 customerClient.checkCustomerExists(account.getCustomerId());
         
-        if (!customerCheck.exists) {
+        if (!customerCheck.exists()) {
             throw new BusinessException("Customer not found");
         }
         
-        if (!customerCheck.kycActive) {
-            throw new BusinessException("Customer KYC is not active. Current status: " + customerCheck.status);
+        if (!customerCheck.kycActive()) {
+            throw new BusinessException("Customer KYC is not active. Current status: " + customerCheck.status());
         }
         
         // 2. Vérifier la règle : un seul compte courant par client
@@ -183,4 +197,219 @@ public class AccountService {
                 )
         );
     }
+
+    /**
+     * Crédite un compte de manière atomique (UPDATE balance = balance + amount).
+     * Une opération déjà appliquée (même operationId) renvoie le compte sans le modifier.
+     */
+    public Account credit(UUID id, BigDecimal amount, String operationId) {
+        validateAmount(amount);
+        log.info("Crediting {} to account {}", amount, id);
+
+        if (!appliedOperations.firstApplication(operationId)) {
+            log.info("Operation {} already applied, credit on account {} skipped", operationId, id);
+            return get(id);
+        }
+
+        if (repository.credit(id, amount) == 0) {
+            Account acc = get(id);
+            throw new BusinessException("Account is not active. Current status: " + acc.getStatus());
+        }
+
+        return publishBalanceUpdated(get(id));
+    }
+
+    /**
+     * Débite un compte de manière atomique, la provision étant vérifiée par la base.
+     * Une opération déjà appliquée (même operationId) renvoie le compte sans le modifier.
+     */
+    public Account debit(UUID id, BigDecimal amount, String operationId) {
+        validateAmount(amount);
+        log.info("Debiting {} from account {}", amount, id);
+
+        if (!appliedOperations.firstApplication(operationId)) {
+            log.info("Operation {} already applied, debit on account {} skipped", operationId, id);
+            return get(id);
+        }
+
+        if (repository.debit(id, amount) == 0) {
+            Account acc = get(id);
+            if (acc.getStatus() != Account.Status.ACTIVE) {
+                throw new BusinessException("Account is not active. Current status: " + acc.getStatus());
+            }
+            throw new BusinessException("Insufficient balance. Current: " + acc.getBalance() + ", Required: " + amount);
+        }
+
+        return publishBalanceUpdated(get(id));
+    }
+
+    /**
+     * Transfère un montant entre deux comptes dans une seule transaction.
+     * Les deux lignes sont verrouillées dans un ordre déterministe (clé primaire)
+     * pour éviter les interblocages entre transferts croisés.
+     * Retourne [source, destination] après mise à jour ; une opération déjà
+     * appliquée (même operationId) les renvoie sans les modifier.
+     */
+    public List<Account> transfer(UUID sourceId, UUID targetId, BigDecimal amount, String operationId) {
+        validateAmount(amount);
+        if (sourceId == null || targetId == null) {
+            throw new BusinessException("Source and target accounts are required");
+        }
+        if (sourceId.equals(targetId)) {
+            throw new BusinessException("Cannot transfer to the same account");
+        }
+        log.info("Transferring {} from account {} to account {}", amount, sourceId, targetId);
+
+        if (!appliedOperations.firstApplication(operationId)) {
+            log.info("Operation {} already applied, transfer from account {} skipped", operationId, sourceId);
+            return List.of(get(sourceId), get(targetId));
+        }
+
+        Map<UUID, Account> locked = lockForUpdate(List.of(sourceId, targetId));
+        Account source = requireAccount(locked, sourceId);
+        Account target = requireAccount(locked, targetId);
+
+        requireActive(source);
+        requireActive(target);
+        if (source.getBalance().compareTo(amount) < 0) {
+            throw new BusinessException("Insufficient balance. Current: " + source.getBalance() + ", Required: " + amount);
+        }
+
+        source.setBalance(source.getBalance().subtract(amount));
+        target.setBalance(target.getBalance().add(amount));
+        Account savedSource = repository.save(source);
+        Account savedTarget = repository.save(target);
+
+        publishBalanceUpdated(savedSource);
+        publishBalanceUpdated(savedTarget);
+        return List.of(savedSource, savedTarget);
+    }
+
+    /**
+     * Applique un lot de mouvements dans une seule transaction.
+     * Tous les comptes concernés sont verrouillés en une requête, chaque
+     * mouvement est validé dans l'ordre sur les soldes en mémoire, puis le
+     * solde net de chaque compte modifié est écrit une seule fois.
+     * Retourne un résultat par mouvement, dans l'ordre reçu.
+     * Un lot renvoyé avec le même operationId n'est pas réappliqué : les
+     * résultats de la première application sont renvoyés.
+     */
+    public List<MovementResultDTO> applyMovements(List<MovementDTO> movements, String operationId) {
+        log.info("Applying batch of {} movements", movements.size());
+
+        if (!appliedOperations.firstApplication(operationId)) {
+            log.info("Batch {} already applied, returning its results", operationId);
+            return appliedOperations.storedResults(operationId);
+        }
+
+        Set<UUID> ids = new HashSet<>();
+        for (MovementDTO m : movements) {
+            if (m.getDebitAccountId() != null) ids.add(m.getDebitAccountId());
+            if (m.getCreditAccountId() != null) ids.add(m.getCreditAccountId());
+        }
+        Map<UUID, Account> locked = ids.isEmpty() ? Map.of() : lockForUpdate(ids);
+
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        locked.values().forEach(a -> balances.put(a.getId(), a.getBalance()));
+        Set<UUID> touched = new HashSet<>();
+        List<MovementResultDTO> results = new ArrayList<>(movements.size());
+
+        for (MovementDTO m : movements) {
+            String rejection = checkMovement(m, locked, balances);
+            if (rejection != null) {
+                results.add(MovementResultDTO.rejected(rejection));
+                continue;
+            }
+            if (m.getDebitAccountId() != null) {
+                balances.merge(m.getDebitAccountId(), m.getAmount().negate(), BigDecimal::add);
+                touched.add(m.getDebitAccountId());
+            }
+            if (m.getCreditAccountId() != null) {
+                balances.merge(m.getCreditAccountId(), m.getAmount(), BigDecimal::add);
+                touched.add(m.getCreditAccountId());
+            }
+            results.add(MovementResultDTO.applied());
+        }
+
+        List<Account> changed = new ArrayList<>(touched.size());
+        for (UUID id : touched) {
+            Account acc = locked.get(id);
+            acc.setBalance(balances.get(id));
+            changed.add(acc);
+        }
+        repository.saveAll(changed).forEach(this::publishBalanceUpdated);
+        if (operationId != null) {
+            appliedOperations.storeResults(operationId, results);
+        }
+
+        log.info("Batch applied - {} movements, {} accounts updated", movements.size(), changed.size());
+        return results;
+    }
+
+    private String checkMovement(MovementDTO m, Map<UUID, Account> locked, Map<UUID, BigDecimal> balances) {
+        if (m.getAmount() == null || m.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be greater than zero";
+        }
+        if (m.getDebitAccountId() == null && m.getCreditAccountId() == null) {
+            return "Movement has no account";
+        }
+        if (m.getDebitAccountId() != null && m.getDebitAccountId().equals(m.getCreditAccountId())) {
+            return "Cannot transfer to the same account";
+        }
+        for (UUID id : new UUID[] { m.getDebitAccountId(), m.getCreditAccountId() }) {
+            if (id == null) continue;
+            Account acc = locked.get(id);
+            if (acc == null) {
+                return "Account not found: " + id;
+            }
+            if (acc.getStatus() != Account.Status.ACTIVE) {
+                return "Account " + id + " is not active. Current status: " + acc.getStatus();
+            }
+        }
+        if (m.getDebitAccountId() != null) {
+            BigDecimal current = balances.get(m.getDebitAccountId());
+            if (current.compareTo(m.getAmount()) < 0) {
+                return "Insufficient balance. Current: " + current + ", Required: " + m.getAmount();
+            }
+        }
+        return null;
+    }
+
+    private Map<UUID, Account> lockForUpdate(Collection<UUID> ids) {
+        return repository.findAllByIdForUpdate(ids).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+    }
+
+    private Account requireAccount(Map<UUID, Account> accounts, UUID id) {
+        Account acc = accounts.get(id);
+        if (acc == null) {
+            throw new BusinessException("Account not found: " + id);
+        }
+        return acc;
+    }
+
+    private void requireActive(Account acc) {
+        if (acc.getStatus() != Account.Status.ACTIVE) {
+            throw new BusinessException("Account " + acc.getId() + " is not active. Current status: " + acc.getStatus());
+        }
+    }
+
+    private Account publishBalanceUpdated(Account saved) {
+        // Publier événement AccountUpdated
+        eventPublisher.publishAccountUpdated(
+                new AccountUpdatedEvent(
+                        saved.getId(),
+                        saved.getStatus().name(),
+                        saved.getBalance(),
+                        "BALANCE_UPDATE"
+                )
+        );
+        return saved;
+    }
+
+    private void validateAmount(BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BusinessException("Amount must be greater than zero");
+        }
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.AccountService.service;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevecompany.AccountService.dto.MovementResultDTO;
+import com.stevecompany.AccountService.exception.BusinessException;
+import com.stevecompany.AccountService.repository.AppliedOperationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Déduplication des mouvements de solde par identifiant d'opération
+ * (en-tête X-Operation-Id). Transaction Service renvoie le même identifiant
+ * quand il reprend une opération dont il ne connaît pas l'issue : le
+ * mouvement n'est appliqué qu'une fois.
+ *
+ * L'identifiant est écrit dans la transaction du mouvement : un mouvement
+ * refusé (annulé) ne laisse aucune trace et peut être représenté. Les
+ * identifiants sont conservés operations.retention, plus longtemps que les
+ * clés d'idempotence de Transaction Service.
+ */
+@Component
+public class AppliedOperations {
+
+    private static final Logger log = LoggerFactory.getLogger(AppliedOperations.class);
+    private static final int MAX_OPERATION_ID_LENGTH = 64;
+
+    private final AppliedOperationRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+
+    public AppliedOperations(AppliedOperationRepository repository,
+                             ObjectMapper objectMapper,
+                             @Value("${operations.retention:7d}") Duration retention) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+    }
+
+    /**
+     * true si le mouvement doit être appliqué : sans identifiant, ou identifiant
+     * jamais vu. À appeler dans la transaction du mouvement, avant de l'appliquer.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean firstApplication(String operationId) {
+        if (operationId == null) {
+            return true;
+        }
+        if (operationId.isBlank() || operationId.length() > MAX_OPERATION_ID_LENGTH) {
+            throw new BusinessException("X-Operation-Id must be 1 to " + MAX_OPERATION_ID_LENGTH + " characters");
+        }
+        return repository.tryRecord(operationId, LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * Conserve les résultats d'un lot, dans la transaction qui l'applique
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void storeResults(String operationId, List<MovementResultDTO> results) {
+        try {
+            repository.storeResult(operationId, objectMapper.writeValueAsString(results));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize batch results", e);
+        }
+    }
+
+    /**
+     * Résultats d'un lot déjà appliqué avec cet identifiant
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<MovementResultDTO> storedResults(String operationId) {
+        String json = repository.findResult(operationId)
+                .orElseThrow(() -> new BusinessException("Operation " + operationId + " is not a batch of movements"));
+        try {
+            return Arrays.asList(objectMapper.readValue(json, MovementResultDTO[].class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored batch results", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${operations.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = repository.deleteOlderThan(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} applied operation ids", deleted);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.Benchmarks;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stevecompany.Benchmarks.stub.InMemoryAccountServiceClient;
+import com.stevecompany.Benchmarks.stub.InMemoryLedgerService;
+import com.stevecompany.Benchmarks.stub.InMemoryTransactionEventPublisher;
+import com.stevecompany.Benchmarks.stub.NoOpTransactionManager;
+import com.stevecompany.TransactionService.cache.AccountStatusCache;
+import com.stevecompany.TransactionService.dto.TransactionRequestDTO;
+import com.stevecompany.TransactionService.dto.TransactionResponseDTO;
+import com.stevecompany.TransactionService.dto.TransferRequestDTO;
+import com.stevecompany.TransactionService.metrics.OperationMetrics;
+import com.stevecompany.TransactionService.service.AccountLanes;
+import com.stevecompany.TransactionService.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemin chaud dépôt / retrait / transfert de TransactionService, sans
+ * réseau ni base : Account Service, ledger et publisher sont en mémoire
+ * (package stub). Le cache de statuts et les verrous par compte sont les
+ * vrais composants ; les comptes sont tirés au hasard dans un pool
+ * de ACCOUNTS comptes déjà présents dans le cache. Les timers Micrometer
+ * (registre en mémoire) sont inclus dans la mesure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyMovementBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    private TransactionService service;
+    private TransactionRequestDTO[] deposits;
+    private TransactionRequestDTO[] withdrawals;
+    private TransferRequestDTO[] transfers;
+
+    @Setup
+    public void setup() {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        InMemoryAccountServiceClient accountClient = new InMemoryAccountServiceClient();
+        AccountStatusCache statusCache = new AccountStatusCache(
+                accountClient, registry, ACCOUNTS * 2L, Duration.ofHours(1));
+
+        // Le repository ne sert qu'aux lectures ; transactions sans base
+        service = new TransactionService(
+                new InMemoryLedgerService(),
+                accountClient,
+                new InMemoryTransactionEventPublisher(mapper),
+                null,
+                statusCache,
+                new TransactionTemplate(new NoOpTransactionManager()),
+                new AccountLanes(registry, 1024, Duration.ofSeconds(5)),
+                new OperationMetrics(registry));
+
+        UUID[] accounts = new UUID[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = UUID.randomUUID();
+            statusCache.isActive(accounts[i]);
+        }
+
+        deposits = new TransactionRequestDTO[ACCOUNTS];
+        withdrawals = new TransactionRequestDTO[ACCOUNTS];
+        transfers = new TransferRequestDTO[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            deposits[i] = request(accounts[i], new BigDecimal("250.00"));
+            withdrawals[i] = request(accounts[i], new BigDecimal("40.00"));
+
+            TransferRequestDTO transfer = new TransferRequestDTO();
+            transfer.setSourceAccountId(accounts[i]);
+            transfer.setTargetAccountId(accounts[(i + 1) % ACCOUNTS]);
+            transfer.setAmount(new BigDecimal("75.50"));
+            transfers[i] = transfer;
+        }
+    }
+
+    @Benchmark
+    public TransactionResponseDTO deposit() {
+        return service.deposit(deposits[next()]);
+    }
+
+    @Benchmark
+    public TransactionResponseDTO withdraw() {
+        return service.withdraw(withdrawals[next()]);
+    }
+
+    @Benchmark
+    public TransactionResponseDTO transfer() {
+        return service.transfer(transfers[next()]);
+    }
+
+    /**
+     * Transferts concurrents : mesure le coût des verrous par compte
+     * quand plusieurs threads se partagent le même pool de comptes.
+     */
+    @Benchmark
+    @Threads(4)
+    public TransactionResponseDTO transferContended() {
+        return service.transfer(transfers[next()]);
+    }
+
+    private static int next() {
+        return ThreadLocalRandom.current().nextInt(ACCOUNTS);
+    }
+
+    private static TransactionRequestDTO request(UUID accountId, BigDecimal amount) {
+        TransactionRequestDTO dto = new TransactionRequestDTO();
+        dto.setAccountId(accountId);
+        dto.setAmount(amount);
+        return dto;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.Benchmarks;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.stevecompany.AccountService.client.CustomerExistsResponse;
+import com.stevecompany.TransactionService.client.AccountResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Désérialisation des réponses Account / Customer Service :
+ * ancienne lecture en Map brute (solde via Double puis String)
+ * contre lecture typée en record (BigDecimal lu directement).
+ * Comparer gc.alloc.rate.norm entre les variantes "rawMap" et "typed".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseDeserializationBenchmark {
+
+    // Corps renvoyés par GET /api/accounts/{id} et GET /api/customers/{id}/exists
+    private static final String ACCOUNT_JSON = "{"
+            + "\"id\":\"3f2b8c1e-9a4d-4c1b-8f7e-2d6a5b4c3e21\","
+            + "\"customerId\":\"a1b2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d\","
+            + "\"type\":\"CURRENT\","
+            + "\"balance\":152340.75,"
+            + "\"status\":\"ACTIVE\","
+            + "\"createdAt\":\"2025-01-15T10:22:31.123456\","
+            + "\"updatedAt\":\"2025-06-02T08:14:05.654321\"}";
+
+    private static final String CUSTOMER_EXISTS_JSON = "{"
+            + "\"exists\":true,"
+            + "\"customerId\":\"a1b2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d\","
+            + "\"status\":\"ACTIVE\","
+            + "\"kycActive\":true}";
+
+    private byte[] accountBytes;
+    private byte[] customerBytes;
+    private ObjectReader mapReader;
+    private ObjectReader accountReader;
+    private ObjectReader customerReader;
+
+    @Setup
+    public void setup() {
+        // Même réglage que l'ObjectMapper de Spring Boot
+        ObjectMapper mapper = new ObjectMapper()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        accountBytes = ACCOUNT_JSON.getBytes(StandardCharsets.UTF_8);
+        customerBytes = CUSTOMER_EXISTS_JSON.getBytes(StandardCharsets.UTF_8);
+        mapReader = mapper.readerFor(Map.class);
+        accountReader = mapper.readerFor(AccountResponse.class);
+        customerReader = mapper.readerFor(CustomerExistsResponse.class);
+    }
+
+    @Benchmark
+    public BigDecimal accountBalanceRawMap() throws IOException {
+        Map<?, ?> body = mapReader.readValue(accountBytes);
+        Object balanceObj = body.get("balance");
+        return new BigDecimal(balanceObj.toString());
+    }
+
+    @Benchmark
+    public BigDecimal accountBalanceTyped() throws IOException {
+        AccountResponse account = accountReader.readValue(accountBytes);
+        return account.balance();
+    }
+
+    @Benchmark
+    public boolean customerExistsRawMap() throws IOException {
+        Map<?, ?> body = mapReader.readValue(customerBytes);
+        return (Boolean) body.get("exists") && (Boolean) body.get("kycActive") && body.get("status") != null;
+    }
+
+    @Benchmark
+    public boolean customerExistsTyped() throws IOException {
+        CustomerExistsResponse response = customerReader.readValue(customerBytes);
+        return response.exists() && response.kycActive() && response.status() != null;
+    }
+}
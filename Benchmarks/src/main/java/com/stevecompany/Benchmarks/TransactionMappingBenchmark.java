@@ -0,0 +1,133 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.Benchmarks;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stevecompany.TransactionService.dto.TransactionResponseDTO;
+import com.stevecompany.TransactionService.entity.Transaction;
+import com.stevecompany.TransactionService.messaging.event.AccountUpdatedEvent;
+import com.stevecompany.TransactionService.messaging.event.TransactionCompletedEvent;
+import com.stevecompany.TransactionService.messaging.event.TransactionFailedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions faites à chaque opération : entité vers TransactionResponseDTO,
+ * sérialisation des événements écrits dans l'outbox et de la réponse HTTP,
+ * lecture de l'AccountUpdatedEvent reçu d'Account Service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionMappingBenchmark {
+
+    private static final String ACCOUNT_UPDATED_JSON = "{"
+            + "\"accountId\":\"3f2b8c1e-9a4d-4c1b-8f7e-2d6a5b4c3e21\","
+            + "\"status\":\"FROZEN\","
+            + "\"balance\":152340.75,"
+            + "\"updateType\":\"FREEZE\"}";
+
+    private Transaction success;
+    private Transaction failed;
+    private TransactionResponseDTO response;
+    private TransactionCompletedEvent completedEvent;
+    private TransactionFailedEvent failedEvent;
+    private byte[] accountUpdatedBytes;
+    private ObjectWriter completedWriter;
+    private ObjectWriter failedWriter;
+    private ObjectWriter responseWriter;
+    private ObjectReader accountUpdatedReader;
+
+    @Setup
+    public void setup() {
+        // Même réglage que l'ObjectMapper de Spring Boot (dates ISO-8601)
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        success = transaction(Transaction.Status.SUCCESS, null);
+        failed = transaction(Transaction.Status.FAILED, "Insufficient balance");
+        response = TransactionResponseDTO.fromEntity(success, "Transfer completed successfully");
+        completedEvent = new TransactionCompletedEvent(success.getId(), success.getAccountId(),
+                success.getTargetAccountId(), success.getType().name(), success.getAmount());
+        failedEvent = new TransactionFailedEvent(failed.getId(), failed.getAccountId(),
+                failed.getType().name(), failed.getAmount(), failed.getFailureReason());
+        accountUpdatedBytes = ACCOUNT_UPDATED_JSON.getBytes(StandardCharsets.UTF_8);
+
+        completedWriter = mapper.writerFor(TransactionCompletedEvent.class);
+        failedWriter = mapper.writerFor(TransactionFailedEvent.class);
+        responseWriter = mapper.writerFor(TransactionResponseDTO.class);
+        accountUpdatedReader = mapper.readerFor(AccountUpdatedEvent.class);
+    }
+
+    @Benchmark
+    public TransactionResponseDTO responseFromEntity() {
+        return TransactionResponseDTO.fromEntity(success, "Transfer completed successfully");
+    }
+
+    @Benchmark
+    public TransactionResponseDTO responseFromFailedEntity() {
+        return TransactionResponseDTO.fromEntity(failed, "Transfer failed: " + failed.getFailureReason());
+    }
+
+    @Benchmark
+    public String serializeCompletedEvent() throws IOException {
+        return completedWriter.writeValueAsString(completedEvent);
+    }
+
+    @Benchmark
+    public String serializeFailedEvent() throws IOException {
+        return failedWriter.writeValueAsString(failedEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public AccountUpdatedEvent deserializeAccountUpdatedEvent() throws IOException {
+        return accountUpdatedReader.readValue(accountUpdatedBytes);
+    }
+
+    private static Transaction transaction(Transaction.Status status, String failureReason) {
+        Transaction tx = new Transaction();
+        tx.setId(UUID.randomUUID());
+        tx.setAccountId(UUID.randomUUID());
+        tx.setTargetAccountId(UUID.randomUUID());
+        tx.setType(Transaction.Type.TRANSFER);
+        tx.setAmount(new BigDecimal("75.50"));
+        tx.setStatus(status);
+        tx.setFailureReason(failureReason);
+        tx.setCreatedAt(LocalDateTime.now());
+        return tx;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.Benchmarks.stub;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.client.AccountServiceClient;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Account Service en mémoire : tous les comptes sont actifs et les
+ * mouvements sont appliqués sur une map, sans appel HTTP.
+ */
+public class InMemoryAccountServiceClient extends AccountServiceClient {
+
+    private final Map<UUID, BigDecimal> balances = new ConcurrentHashMap<>();
+
+    public InMemoryAccountServiceClient() {
+        super(null, null, null, "http://in-memory");
+    }
+
+    @Override
+    public String getStatus(UUID accountId) {
+        return "ACTIVE";
+    }
+
+    @Override
+    public BigDecimal getBalance(UUID accountId) {
+        return balances.getOrDefault(accountId, BigDecimal.ZERO);
+    }
+
+    @Override
+    public void credit(UUID accountId, BigDecimal amount, String operationId) {
+        balances.merge(accountId, amount, BigDecimal::add);
+    }
+
+    @Override
+    public void debit(UUID accountId, BigDecimal amount, String operationId) {
+        balances.merge(accountId, amount.negate(), BigDecimal::add);
+    }
+
+    @Override
+    public void transfer(UUID sourceAccountId, UUID targetAccountId, BigDecimal amount, String operationId) {
+        debit(sourceAccountId, amount, operationId);
+        credit(targetAccountId, amount, operationId);
+    }
+}
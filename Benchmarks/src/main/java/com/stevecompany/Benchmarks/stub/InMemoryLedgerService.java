@@ -0,0 +1,46 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.Benchmarks.stub;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.entity.Transaction;
+import com.stevecompany.TransactionService.service.LedgerService;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ledger en mémoire : reproduit ce que fait la persistance (id généré,
+ * createdAt du @PrePersist) sans conserver les écritures.
+ */
+public class InMemoryLedgerService extends LedgerService {
+
+    private final LongAdder recorded = new LongAdder();
+
+    public InMemoryLedgerService() {
+        super(null, null);
+    }
+
+    // Écritures non conservées : chaque opération est nouvelle
+    @Override
+    public Optional<Transaction> findByOperationId(String operationId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Transaction record(Transaction tx) {
+        tx.setId(UUID.randomUUID());
+        tx.setCreatedAt(LocalDateTime.now());
+        recorded.increment();
+        return tx;
+    }
+
+    public long recorded() { return recorded.sum(); }
+}
@@ -0,0 +1,65 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.Benchmarks.stub;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevecompany.TransactionService.entity.Transaction;
+import com.stevecompany.TransactionService.messaging.TransactionEventPublisher;
+import com.stevecompany.TransactionService.messaging.event.TransactionCompletedEvent;
+import com.stevecompany.TransactionService.messaging.event.TransactionFailedEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publisher sans outbox : l'événement est construit et sérialisé en JSON
+ * comme dans TransactionEventPublisher, puis ignoré (pas de table outbox).
+ */
+public class InMemoryTransactionEventPublisher extends TransactionEventPublisher {
+
+    private final ObjectMapper objectMapper;
+    private final LongAdder payloadBytes = new LongAdder();
+
+    public InMemoryTransactionEventPublisher(ObjectMapper objectMapper) {
+        super(null, objectMapper, null, null, null);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publishSuccess(Transaction tx) {
+        enqueue(new TransactionCompletedEvent(
+                tx.getId(),
+                tx.getAccountId(),
+                tx.getTargetAccountId(),
+                tx.getType().name(),
+                tx.getAmount()
+        ));
+    }
+
+    @Override
+    public void publishFailure(Transaction tx) {
+        enqueue(new TransactionFailedEvent(
+                tx.getId(),
+                tx.getAccountId(),
+                tx.getType().name(),
+                tx.getAmount(),
+                tx.getFailureReason()
+        ));
+    }
+
+    public long payloadBytes() { return payloadBytes.sum(); }
+
+    private void enqueue(Object event) {
+        try {
+            payloadBytes.add(objectMapper.writeValueAsString(event).length());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.getClass().getSimpleName(), e);
+        }
+    }
+}
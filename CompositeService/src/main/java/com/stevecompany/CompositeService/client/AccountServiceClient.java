@@ -10,6 +10,8 @@ package com.stevecompany.CompositeService.client;
  */
 import com.stevecompany.CompositeService.dto.AccountDTO;
 import com.stevecompany.CompositeService.exception.ServiceUnavailableException;
+import com.stevecompany.CompositeService.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
@@ -19,6 +21,7 @@ import org.springframework.web.client.RestTemplate;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Component
 public class AccountServiceClient {
@@ -26,9 +29,11 @@ public class AccountServiceClient {
     private static final Logger log = LoggerFactory.getLogger(AccountServiceClient.class);
     private static final String ACCOUNT_SERVICE_URL = "http://ACCOUNT-SERVICE-WILLBANK/api/accounts";
     private final RestTemplate restTemplate;
+    private final OperationMetrics metrics;
 
-    public AccountServiceClient(RestTemplate restTemplate) {
+    public AccountServiceClient(RestTemplate restTemplate, OperationMetrics metrics) {
         this.restTemplate = restTemplate;
+        this.metrics = metrics;
     }
 
     public List<AccountDTO> getAccountsByCustomer(UUID customerId) {
@@ -36,12 +41,12 @@ public class AccountServiceClient {
         log.info("Calling Account Service: {}", url);
         
         try {
-            return restTemplate.exchange(
+            return timed("getAccountsByCustomer", () -> restTemplate.exchange(
                 url,
                 HttpMethod.GET,
                 null,
                 new ParameterizedTypeReference<List<AccountDTO>>() {}
-            ).getBody();
+            ).getBody());
         } catch (Exception e) {
             log.error("Error calling Account Service for customer {}: {}", customerId, e.getMessage());
             throw new ServiceUnavailableException("Account Service unavailable");
@@ -53,10 +58,14 @@ public class AccountServiceClient {
         log.info("Calling Account Service: {}", url);
         
         try {
-            return restTemplate.getForObject(url, AccountDTO.class);
+            return timed("getAccount", () -> restTemplate.getForObject(url, AccountDTO.class));
         } catch (Exception e) {
             log.error("Error calling Account Service for account {}: {}", accountId, e.getMessage());
             throw new ServiceUnavailableException("Account Service unavailable");
         }
     }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        return metrics.record("client.calls", Tags.of("target", "account-service", "operation", operation), call);
+    }
 }
\ No newline at end of file
@@ -10,12 +10,15 @@ package com.stevecompany.CompositeService.client;
  */
 import com.stevecompany.CompositeService.dto.CustomerDTO;
 import com.stevecompany.CompositeService.exception.ServiceUnavailableException;
+import com.stevecompany.CompositeService.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Component
 public class CustomerServiceClient {
@@ -23,9 +26,11 @@ public class CustomerServiceClient {
     private static final Logger log = LoggerFactory.getLogger(CustomerServiceClient.class);
     private static final String CUSTOMER_SERVICE_URL = "http://CUSTOMER-SERVICE-WILLBANK/api/customers";
     private final RestTemplate restTemplate;
+    private final OperationMetrics metrics;
 
-    public CustomerServiceClient(RestTemplate restTemplate) {
+    public CustomerServiceClient(RestTemplate restTemplate, OperationMetrics metrics) {
         this.restTemplate = restTemplate;
+        this.metrics = metrics;
     }
 
     public CustomerDTO getCustomer(UUID customerId) {
@@ -33,10 +38,14 @@ public class CustomerServiceClient {
         log.info("Calling Customer Service: {}", url);
         
         try {
-            return restTemplate.getForObject(url, CustomerDTO.class);
+            return timed("getCustomer", () -> restTemplate.getForObject(url, CustomerDTO.class));
         } catch (Exception e) {
             log.error("Error calling Customer Service for customer {}: {}", customerId, e.getMessage());
             throw new ServiceUnavailableException("Customer Service unavailable");
         }
     }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        return metrics.record("client.calls", Tags.of("target", "customer-service", "operation", operation), call);
+    }
 }
\ No newline at end of file
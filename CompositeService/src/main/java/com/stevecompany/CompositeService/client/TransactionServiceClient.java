@@ -8,91 +8,147 @@ package com.stevecompany.CompositeService.client;
  *
  * @author steve
  */
+import com.stevecompany.CompositeService.dto.StatementFormat;
 import com.stevecompany.CompositeService.dto.TransactionDTO;
+import com.stevecompany.CompositeService.dto.TransactionPageDTO;
 import com.stevecompany.CompositeService.exception.ServiceUnavailableException;
+import com.stevecompany.CompositeService.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Component
 public class TransactionServiceClient {
 
     private static final Logger log = LoggerFactory.getLogger(TransactionServiceClient.class);
     private static final String TRANSACTION_SERVICE_URL = "http://TRANSACTION-SERVICE-WILLBANK/api/transactions";
+    private static final int PERIOD_PAGE_SIZE = 500;
     private final RestTemplate restTemplate;
+    private final RestTemplate streamingRestTemplate;
+    private final OperationMetrics metrics;
 
-    public TransactionServiceClient(RestTemplate restTemplate) {
+    public TransactionServiceClient(RestTemplate restTemplate,
+                                    @Qualifier("streamingRestTemplate") RestTemplate streamingRestTemplate,
+                                    OperationMetrics metrics) {
         this.restTemplate = restTemplate;
+        this.streamingRestTemplate = streamingRestTemplate;
+        this.metrics = metrics;
     }
 
-    public List<TransactionDTO> getRecentTransactions(UUID accountId, int limit) {
-        String url = TRANSACTION_SERVICE_URL + "/account/" + accountId + "?page=0&size=" + limit;
+    /**
+     * Les transactions les plus récentes sur plusieurs comptes, en un seul appel
+     */
+    public List<TransactionDTO> getRecentTransactions(List<UUID> accountIds, int limit) {
+        String ids = accountIds.stream().map(UUID::toString).collect(Collectors.joining(","));
+        String url = TRANSACTION_SERVICE_URL + "/recent?accountIds=" + ids + "&limit=" + limit;
         log.info("Calling Transaction Service: {}", url);
-        
+
         try {
-            // La réponse est paginée, on extrait le contenu
-            return restTemplate.exchange(
+            return timed("getRecentTransactions", () -> restTemplate.exchange(
                 url,
                 HttpMethod.GET,
                 null,
                 new ParameterizedTypeReference<List<TransactionDTO>>() {}
-            ).getBody();
+            ).getBody());
         } catch (Exception e) {
-            log.error("Error calling Transaction Service for account {}: {}", accountId, e.getMessage());
+            log.error("Error calling Transaction Service for accounts {}: {}", accountIds, e.getMessage());
             throw new ServiceUnavailableException("Transaction Service unavailable");
         }
     }
 
+    /**
+     * Transactions d'un compte sur une période : le filtre est appliqué par
+     * Transaction Service, on ne lit que les pages de la période, par curseur
+     */
     public List<TransactionDTO> getTransactionsByPeriod(UUID accountId, LocalDate from, LocalDate to) {
-        String url = TRANSACTION_SERVICE_URL + "/account/" + accountId;
-        log.info("Calling Transaction Service for period: {}", url);
-        
+        String baseUrl = TRANSACTION_SERVICE_URL + "/account/" + accountId + "?from=" + from + "&to=" + to
+                + "&size=" + PERIOD_PAGE_SIZE;
+        log.info("Calling Transaction Service for period: {}", baseUrl);
+
+        try {
+            // Toutes les pages de la période dans une seule mesure
+            return timed("getTransactionsByPeriod", () -> {
+                List<TransactionDTO> transactions = new ArrayList<>();
+                String cursor = null;
+                do {
+                    TransactionPageDTO page = restTemplate.getForObject(
+                        cursor == null ? baseUrl : baseUrl + "&cursor={cursor}",
+                        TransactionPageDTO.class,
+                        cursor == null ? new Object[0] : new Object[] {cursor}
+                    );
+                    transactions.addAll(page.getContent());
+                    cursor = page.getNextCursor();
+                } while (cursor != null);
+                return transactions;
+            });
+        } catch (Exception e) {
+            log.error("Error calling Transaction Service for account {}: {}", accountId, e.getMessage());
+            throw new ServiceUnavailableException("Transaction Service unavailable");
+        }
+    }
+
+    /**
+     * Relevé exporté en flux par Transaction Service, recopié tel quel dans
+     * la sortie : aucune transaction n'est désérialisée ni gardée en mémoire
+     */
+    public void streamStatement(UUID accountId, LocalDate from, LocalDate to, StatementFormat format,
+                                BigDecimal currentBalance, OutputStream out) {
+        String url = TRANSACTION_SERVICE_URL + "/account/" + accountId + "/statement?from=" + from + "&to=" + to
+                + "&format=" + format.name().toLowerCase()
+                + (currentBalance != null ? "&currentBalance=" + currentBalance.toPlainString() : "");
+        log.info("Streaming statement from Transaction Service: {}", url);
+
         try {
-            List<TransactionDTO> allTransactions = restTemplate.exchange(
+            timed("streamStatement", () -> streamingRestTemplate.execute(
                 url,
                 HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<List<TransactionDTO>>() {}
-            ).getBody();
-            
-            // Filtrer par période côté composite (ou ajouter paramètres au Transaction Service)
-            return allTransactions.stream()
-                .filter(tx -> {
-                    LocalDate txDate = tx.getCreatedAt().toLocalDate();
-                    return !txDate.isBefore(from) && !txDate.isAfter(to);
-                })
-                .toList();
+                request -> request.getHeaders().setAccept(List.of(format.getMediaType())),
+                response -> StreamUtils.copy(response.getBody(), out)
+            ));
         } catch (Exception e) {
-            log.error("Error calling Transaction Service for account {}: {}", accountId, e.getMessage());
+            log.error("Error streaming statement for account {}: {}", accountId, e.getMessage());
             throw new ServiceUnavailableException("Transaction Service unavailable");
         }
     }
 
-    public List<TransactionDTO> searchTransactions(String type, LocalDate date) {
+    public List<TransactionDTO> searchTransactions(String type, LocalDate date, int page, int size) {
         StringBuilder url = new StringBuilder(TRANSACTION_SERVICE_URL + "/search?");
         
         if (type != null) url.append("type=").append(type).append("&");
-        if (date != null) url.append("date=").append(date);
+        if (date != null) url.append("date=").append(date).append("&");
+        url.append("page=").append(page).append("&size=").append(size);
         
         log.info("Calling Transaction Service search: {}", url);
         
         try {
-            return restTemplate.exchange(
+            return timed("searchTransactions", () -> restTemplate.exchange(
                 url.toString(),
                 HttpMethod.GET,
                 null,
                 new ParameterizedTypeReference<List<TransactionDTO>>() {}
-            ).getBody();
+            ).getBody());
         } catch (Exception e) {
             log.error("Error calling Transaction Service search: {}", e.getMessage());
             throw new ServiceUnavailableException("Transaction Service unavailable");
         }
     }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        return metrics.record("client.calls", Tags.of("target", "transaction-service", "operation", operation), call);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.CompositeService.config;
+
+/**
+ *
+ * @author steve
+ */
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Pool borné dédié aux appels parallèles du dashboard (Java 17 : pas de virtual threads).
+ * Une file pleine provoque un rejet, traité comme un résultat partiel.
+ */
+@Configuration
+public class DashboardExecutorConfig {
+
+    @Value("${dashboard.executor.pool-size:32}")
+    private int poolSize;
+
+    @Value("${dashboard.executor.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor dashboardExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        // Les appels parallèles restent dans la trace de la requête dashboard
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -10,14 +10,21 @@ package com.stevecompany.CompositeService.controller;
  */
 import com.stevecompany.CompositeService.dto.AccountStatementDTO;
 import com.stevecompany.CompositeService.dto.DashboardResponseDTO;
+import com.stevecompany.CompositeService.dto.StatementFormat;
 import com.stevecompany.CompositeService.dto.TransactionDTO;
 import com.stevecompany.CompositeService.service.CompositeService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
@@ -28,9 +35,12 @@ public class CompositeController {
 
     private static final Logger log = LoggerFactory.getLogger(CompositeController.class);
     private final CompositeService service;
+    private final Duration exportTimeout;
 
-    public CompositeController(CompositeService service) {
+    public CompositeController(CompositeService service,
+                               @Value("${statement.export.timeout:10m}") Duration exportTimeout) {
         this.service = service;
+        this.exportTimeout = exportTimeout;
     }
 
     /**
@@ -62,17 +72,50 @@ public class CompositeController {
     }
 
     /**
-     * GET /api/dashboard/transactions/search?type=&date=
-     * Recherche de transactions par type et/ou date
+     * GET /api/dashboard/accounts/{accountId}/statement/export?from=&to=&format=ndjson|csv
+     * Relevé exporté en flux, avec solde courant, sans limite de taille.
+     * Écrit directement dans la réponse, avec son propre délai (statement.export.timeout) :
+     * le délai global des réponses asynchrones (spring.mvc.async.request-timeout) reste court
+     */
+    @GetMapping("/accounts/{accountId}/statement/export")
+    public WebAsyncTask<Void> exportAccountStatement(
+            @PathVariable UUID accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+
+        log.info("Received GET /api/dashboard/accounts/{}/statement/export - from: {}, to: {}, format: {}",
+                accountId, from, to, format);
+
+        StatementFormat statementFormat = StatementFormat.parse(format);
+        StreamingResponseBody body = service.exportAccountStatement(accountId, from, to, statementFormat);
+        String filename = "statement-" + accountId + "-" + from + "-" + to + "." + statementFormat.name().toLowerCase();
+
+        response.setContentType(statementFormat.getMediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            body.writeTo(response.getOutputStream());
+            return null;
+        });
+    }
+
+    /**
+     * GET /api/dashboard/transactions/search?type=&date=&page=&size=
+     * Recherche paginée de transactions par type et/ou date
      */
     @GetMapping("/transactions/search")
     public ResponseEntity<List<TransactionDTO>> searchTransactions(
             @RequestParam(required = false) String type,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "50") int size) {
         
-        log.info("Received GET /api/dashboard/transactions/search - type: {}, date: {}", type, date);
+        log.info("Received GET /api/dashboard/transactions/search - type: {}, date: {}, page: {}, size: {}",
+                type, date, page, size);
         
-        List<TransactionDTO> transactions = service.searchTransactions(type, date);
+        List<TransactionDTO> transactions = service.searchTransactions(type, date, page, size);
         return ResponseEntity.ok(transactions);
     }
 }
\ No newline at end of file
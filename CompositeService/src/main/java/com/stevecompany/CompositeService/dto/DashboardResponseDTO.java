@@ -14,6 +14,7 @@ public class DashboardResponseDTO {
     private CustomerDTO customer;
     private List<AccountDTO> accounts;
     private List<TransactionDTO> recentTransactions;
+    private boolean partial; // true si le client, les comptes ou les transactions n'ont pas pu être récupérés
 
     // Getters & Setters
     public CustomerDTO getCustomer() { return customer; }
@@ -24,4 +25,6 @@ public class DashboardResponseDTO {
     public void setRecentTransactions(List<TransactionDTO> recentTransactions) { 
         this.recentTransactions = recentTransactions; 
     }
+    public boolean isPartial() { return partial; }
+    public void setPartial(boolean partial) { this.partial = partial; }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.CompositeService.dto;
+
+/**
+ *
+ * @author steve
+ */
+import org.springframework.http.MediaType;
+
+public enum StatementFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final MediaType mediaType;
+
+    StatementFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() { return mediaType; }
+
+    public static StatementFormat parse(String format) {
+        for (StatementFormat f : values()) {
+            if (f.name().equalsIgnoreCase(format)) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported statement format: " + format);
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.CompositeService.dto;
+
+/**
+ *
+ * @author steve
+ */
+import java.util.List;
+
+public class TransactionPageDTO {
+    private List<TransactionDTO> content;
+    private String nextCursor; // Curseur de la page suivante ; null s'il n'y en a plus
+    private boolean hasNext;
+
+    // Getters & Setters
+    public List<TransactionDTO> getContent() { return content; }
+    public void setContent(List<TransactionDTO> content) { this.content = content; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+}
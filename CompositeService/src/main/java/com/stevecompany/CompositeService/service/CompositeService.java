@@ -12,14 +12,22 @@ import com.stevecompany.CompositeService.client.AccountServiceClient;
 import com.stevecompany.CompositeService.client.CustomerServiceClient;
 import com.stevecompany.CompositeService.client.TransactionServiceClient;
 import com.stevecompany.CompositeService.dto.*;
+import com.stevecompany.CompositeService.exception.ServiceUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 public class CompositeService {
@@ -28,56 +36,86 @@ public class CompositeService {
     private final CustomerServiceClient customerClient;
     private final AccountServiceClient accountClient;
     private final TransactionServiceClient transactionClient;
+    private final Executor executor;
+    private final long callTimeoutMs;
 
     public CompositeService(CustomerServiceClient customerClient,
                             AccountServiceClient accountClient,
-                            TransactionServiceClient transactionClient) {
+                            TransactionServiceClient transactionClient,
+                            @Qualifier("dashboardExecutor") Executor executor,
+                            @Value("${dashboard.call-timeout-ms:2000}") long callTimeoutMs) {
         this.customerClient = customerClient;
         this.accountClient = accountClient;
         this.transactionClient = transactionClient;
+        this.executor = executor;
+        this.callTimeoutMs = callTimeoutMs;
     }
 
     /**
-     * Dashboard client : infos client + comptes + dernières transactions
+     * Dashboard client : infos client + comptes + dernières transactions.
+     * Client et comptes sont récupérés en parallèle sous un même délai, puis
+     * les transactions récentes de tous les comptes en un seul appel au
+     * Transaction Service. Chaque partie manquante (erreur, délai dépassé)
+     * donne un résultat partiel ; 503 seulement si ni le client ni ses
+     * comptes ne sont disponibles.
      */
     public DashboardResponseDTO getDashboard(UUID customerId) {
         log.info("Building dashboard for customer: {}", customerId);
         
         DashboardResponseDTO dashboard = new DashboardResponseDTO();
         
-        // 1. Récupérer les infos client
-        CustomerDTO customer = customerClient.getCustomer(customerId);
-        dashboard.setCustomer(customer);
-        
-        // 2. Récupérer tous les comptes du client
-        List<AccountDTO> accounts = accountClient.getAccountsByCustomer(customerId);
-        dashboard.setAccounts(accounts);
-        
-        // 3. Récupérer les dernières transactions de tous les comptes (max 10 par compte)
-        List<TransactionDTO> recentTransactions = new ArrayList<>();
-        for (AccountDTO account : accounts) {
-            try {
-                List<TransactionDTO> accountTransactions = transactionClient.getRecentTransactions(account.getId(), 10);
-                recentTransactions.addAll(accountTransactions);
-            } catch (Exception e) {
-                log.warn("Could not fetch transactions for account {}: {}", account.getId(), e.getMessage());
-            }
+        // 1. Récupérer les infos client et les comptes en parallèle : les deux délais
+        //    courent dès la soumission, l'attente totale ne dépasse pas callTimeoutMs
+        CompletableFuture<CustomerDTO> customerFuture =
+                call("Customer Service", () -> customerClient.getCustomer(customerId));
+        CompletableFuture<List<AccountDTO>> accountsFuture =
+                call("Account Service", () -> accountClient.getAccountsByCustomer(customerId));
+
+        CustomerDTO customer = customerFuture.join();
+        List<AccountDTO> accounts = accountsFuture.join();
+        if (customer == null && accounts == null) {
+            throw new ServiceUnavailableException("Customer Service and Account Service unavailable");
         }
+        dashboard.setCustomer(customer);
+        dashboard.setAccounts(accounts == null ? List.of() : accounts);
         
-        // Limiter à 20 transactions les plus récentes
-        recentTransactions.sort((t1, t2) -> t2.getCreatedAt().compareTo(t1.getCreatedAt()));
-        dashboard.setRecentTransactions(
-            recentTransactions.size() > 20 
-                ? recentTransactions.subList(0, 20) 
-                : recentTransactions
-        );
+        // 2. Récupérer les 20 transactions les plus récentes, tous comptes confondus, en un seul appel
+        List<UUID> accountIds = dashboard.getAccounts().stream().map(AccountDTO::getId).toList();
+        List<TransactionDTO> recentTransactions = accountIds.isEmpty()
+                ? List.of()
+                : call("Transaction Service", () -> transactionClient.getRecentTransactions(accountIds, 20)).join();
+        dashboard.setPartial(customer == null || accounts == null || recentTransactions == null);
+        dashboard.setRecentTransactions(recentTransactions == null ? List.of() : recentTransactions);
         
-        log.info("Dashboard built: {} accounts, {} recent transactions", 
-                accounts.size(), dashboard.getRecentTransactions().size());
+        log.info("Dashboard built: {} accounts, {} recent transactions, partial: {}", 
+                dashboard.getAccounts().size(), dashboard.getRecentTransactions().size(), dashboard.isPartial());
         
         return dashboard;
     }
 
+    /**
+     * Appel sur le pool du tableau de bord, borné à callTimeoutMs dès sa
+     * soumission ; null (résultat partiel) en cas d'erreur, de dépassement du
+     * délai ou de pool saturé. Un appel abandonné n'est pas interrompu : le
+     * délai de lecture HTTP, plus court que callTimeoutMs, libère son thread.
+     */
+    private <T> CompletableFuture<T> call(String serviceName, Supplier<T> call) {
+        return submit(call)
+                .orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.warn("{} call failed or timed out after {} ms: {}", serviceName, callTimeoutMs, e.toString());
+                    return null;
+                });
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Relevé d'un compte sur une période
      */
@@ -101,11 +139,23 @@ public class CompositeService {
         return statement;
     }
 
+    /**
+     * Relevé d'un compte exporté en flux (NDJSON ou CSV) avec solde courant.
+     * Le compte est lu avant l'envoi de la réponse (erreur 503 possible) ;
+     * son solde actuel sert au calcul du solde d'ouverture par Transaction Service.
+     */
+    public StreamingResponseBody exportAccountStatement(UUID accountId, LocalDate from, LocalDate to,
+                                                        StatementFormat format) {
+        log.info("Exporting account statement for account {} from {} to {} as {}", accountId, from, to, format);
+        AccountDTO account = accountClient.getAccount(accountId);
+        return out -> transactionClient.streamStatement(accountId, from, to, format, account.getBalance(), out);
+    }
+
     /**
      * Recherche de transactions par type et/ou date
      */
-    public List<TransactionDTO> searchTransactions(String type, LocalDate date) {
-        log.info("Searching transactions - type: {}, date: {}", type, date);
-        return transactionClient.searchTransactions(type, date);
+    public List<TransactionDTO> searchTransactions(String type, LocalDate date, int page, int size) {
+        log.info("Searching transactions - type: {}, date: {}, page: {}, size: {}", type, date, page, size);
+        return transactionClient.searchTransactions(type, date, page, size);
     }
 }
\ No newline at end of file
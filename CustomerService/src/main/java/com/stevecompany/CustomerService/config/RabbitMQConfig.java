@@ -88,6 +88,8 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter());
+        // Span producteur + en-tête traceparent sur chaque message publié
+        template.setObservationEnabled(true);
         return template;
     }
 }
\ No newline at end of file
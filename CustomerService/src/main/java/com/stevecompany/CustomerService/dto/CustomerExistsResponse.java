@@ -11,30 +11,14 @@ package com.stevecompany.CustomerService.dto;
 import com.stevecompany.CustomerService.entity.Customer;
 import java.util.UUID;
 
-public class CustomerExistsResponse {
-    private boolean exists;
-    private UUID customerId;
-    private String status;
-
-    public CustomerExistsResponse(boolean exists, UUID customerId, String status) {
-        this.exists = exists;
-        this.customerId = customerId;
-        this.status = status;
-    }
+public record CustomerExistsResponse(boolean exists, UUID customerId, String status, boolean kycActive) {
 
     public static CustomerExistsResponse found(Customer customer) {
-        return new CustomerExistsResponse(true, customer.getId(), customer.getStatus().name());
+        return new CustomerExistsResponse(true, customer.getId(), customer.getStatus().name(),
+                customer.getStatus() == Customer.Status.ACTIVE);
     }
 
-    public static CustomerExistsResponse notFound() {
-        return new CustomerExistsResponse(false, null, null);
+    public static CustomerExistsResponse notFound(UUID customerId) {
+        return new CustomerExistsResponse(false, customerId, "NOT_FOUND", false);
     }
-
-    public boolean isExists() { return exists; }
-    public UUID getCustomerId() { return customerId; }
-    public String getStatus() { return status; }
-
-    public void setExists(boolean exists) { this.exists = exists; }
-    public void setCustomerId(UUID customerId) { this.customerId = customerId; }
-    public void setStatus(String status) { this.status = status; }
-}
\ No newline at end of file
+}
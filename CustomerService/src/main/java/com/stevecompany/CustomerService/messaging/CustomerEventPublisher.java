@@ -12,6 +12,8 @@ import com.stevecompany.CustomerService.config.RabbitMQConfig;
 import com.stevecompany.CustomerService.event.CustomerCreatedEvent;
 import com.stevecompany.CustomerService.event.CustomerProfileUpdatedEvent;
 import com.stevecompany.CustomerService.event.CustomerStatusChangedEvent;
+import com.stevecompany.CustomerService.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -22,9 +24,11 @@ public class CustomerEventPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(CustomerEventPublisher.class);
     private final RabbitTemplate rabbitTemplate;
+    private final OperationMetrics metrics;
 
-    public CustomerEventPublisher(RabbitTemplate rabbitTemplate) {
+    public CustomerEventPublisher(RabbitTemplate rabbitTemplate, OperationMetrics metrics) {
         this.rabbitTemplate = rabbitTemplate;
+        this.metrics = metrics;
     }
 
     /**
@@ -36,11 +40,7 @@ public class CustomerEventPublisher {
     public void publishCustomerCreated(CustomerCreatedEvent event) {
         log.info("Publishing CustomerCreatedEvent for customer: {}", event.getCustomerId());
         try {
-            rabbitTemplate.convertAndSend(
-                RabbitMQConfig.EXCHANGE_NAME,
-                RabbitMQConfig.ROUTING_KEY_CREATED,
-                event
-            );
+            send(RabbitMQConfig.ROUTING_KEY_CREATED, event);
             log.info("CustomerCreatedEvent published successfully");
         } catch (Exception e) {
             log.error("Error publishing CustomerCreatedEvent", e);
@@ -57,11 +57,7 @@ public class CustomerEventPublisher {
     public void publishCustomerProfileUpdated(CustomerProfileUpdatedEvent event) {
         log.info("Publishing CustomerProfileUpdatedEvent for customer: {}", event.getCustomerId());
         try {
-            rabbitTemplate.convertAndSend(
-                RabbitMQConfig.EXCHANGE_NAME,
-                RabbitMQConfig.ROUTING_KEY_PROFILE_UPDATED,
-                event
-            );
+            send(RabbitMQConfig.ROUTING_KEY_PROFILE_UPDATED, event);
             log.info("CustomerProfileUpdatedEvent published successfully");
         } catch (Exception e) {
             log.error("Error publishing CustomerProfileUpdatedEvent", e);
@@ -80,15 +76,16 @@ public class CustomerEventPublisher {
         log.info("Publishing CustomerStatusChangedEvent for customer: {} ({} → {})", 
             event.getCustomerId(), event.getPreviousStatus(), event.getNewStatus());
         try {
-            rabbitTemplate.convertAndSend(
-                RabbitMQConfig.EXCHANGE_NAME,
-                RabbitMQConfig.ROUTING_KEY_STATUS_CHANGED,
-                event
-            );
+            send(RabbitMQConfig.ROUTING_KEY_STATUS_CHANGED, event);
             log.info("CustomerStatusChangedEvent published successfully");
         } catch (Exception e) {
             log.error("Error publishing CustomerStatusChangedEvent", e);
             throw new RuntimeException("Failed to publish customer status changed event", e);
         }
     }
+
+    private void send(String routingKey, Object event) {
+        metrics.run("events.published", Tags.of("event", event.getClass().getSimpleName(), "channel", "amqp"),
+                () -> rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, routingKey, event));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.CustomerService.metrics;
+
+/**
+ *
+ * @author steve
+ */
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Chronomètre les publications d'événements de Customer Service et compte leurs échecs.
+ * Copie de TransactionService (metrics/OperationMetrics) : voir sa javadoc, qui fait référence.
+ */
+@Component
+public class OperationMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String FAILED = "failed";
+    public static final String ERROR = "error";
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry registry;
+
+    public OperationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T record(String name, Tags tags, Supplier<T> action) {
+        return record(name, tags, action, result -> SUCCESS);
+    }
+
+    public void run(String name, Tags tags, Runnable action) {
+        record(name, tags, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * @param outcome issue déduite du résultat (SUCCESS ou FAILED)
+     */
+    public <T> T record(String name, Tags tags, Supplier<T> action, Function<T, String> outcome) {
+        long start = System.nanoTime();
+        String result = ERROR;
+        String exception = NO_EXCEPTION;
+        try {
+            T value = action.get();
+            result = outcome.apply(value);
+            return value;
+        } catch (RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Tags outcomeTags = tags.and("outcome", result);
+            timer(name, outcomeTags).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!SUCCESS.equals(result)) {
+                registry.counter(name + ".errors", outcomeTags.and("exception", exception)).increment();
+            }
+        }
+    }
+
+    private Timer timer(String name, Tags tags) {
+        // Micrometer renvoie le timer déjà enregistré pour ce nom et ces tags
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+}
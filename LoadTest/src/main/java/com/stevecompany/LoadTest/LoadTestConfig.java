@@ -0,0 +1,116 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.LoadTest.load.Operation;
+import com.stevecompany.LoadTest.stack.ServiceNode;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Options du test de charge, passées en arguments --clé=valeur.
+ */
+public class LoadTestConfig {
+
+    public enum Mode {
+        /** Les quatre services dans la JVM du test */
+        EMBEDDED,
+        /** Un processus Java par service, relancé depuis le même classpath */
+        FORK,
+        /** Services déjà démarrés ailleurs (url.customer, url.account, ...) */
+        EXTERNAL
+    }
+
+    private Mode mode = Mode.EMBEDDED;
+    private Duration warmup = Duration.ofSeconds(10);
+    private Duration duration = Duration.ofSeconds(60);
+    private int concurrency = 16;
+    private int customers = 100;
+    private Map<Operation, Integer> mix = parseMix("deposit=35,withdraw=15,transfer=35,dashboard=15");
+    private String resultFile = "loadtest-result.json";
+    private String forkJvmOptions = "-Xmx512m";
+    private final Map<ServiceNode, String> externalUrls = new EnumMap<>(ServiceNode.class);
+
+    public static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value, got: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "mode" -> config.mode = Mode.valueOf(value.toUpperCase());
+                case "warmup" -> config.warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> config.duration = DurationStyle.detectAndParse(value);
+                case "concurrency" -> config.concurrency = Integer.parseInt(value);
+                case "customers" -> config.customers = Integer.parseInt(value);
+                case "mix" -> config.mix = parseMix(value);
+                case "result" -> config.resultFile = value;
+                case "fork.jvm-options" -> config.forkJvmOptions = value;
+                case "url.customer" -> config.externalUrls.put(ServiceNode.CUSTOMER, value);
+                case "url.account" -> config.externalUrls.put(ServiceNode.ACCOUNT, value);
+                case "url.transaction" -> config.externalUrls.put(ServiceNode.TRANSACTION, value);
+                case "url.composite" -> config.externalUrls.put(ServiceNode.COMPOSITE, value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + key);
+            }
+        }
+        if (config.concurrency < 1 || config.customers < 2) {
+            throw new IllegalArgumentException("concurrency must be >= 1 and customers >= 2");
+        }
+        if (config.mode == Mode.EXTERNAL && config.externalUrls.size() < ServiceNode.values().length) {
+            throw new IllegalArgumentException(
+                    "External mode needs --url.customer, --url.account, --url.transaction and --url.composite");
+        }
+        return config;
+    }
+
+    /**
+     * Poids relatifs des opérations, ex. "deposit=40,transfer=40,dashboard=20"
+     */
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Mix must contain at least one operation with a positive weight");
+        }
+        return mix;
+    }
+
+    public Mode getMode() { return mode; }
+
+    public Duration getWarmup() { return warmup; }
+
+    public Duration getDuration() { return duration; }
+
+    public int getConcurrency() { return concurrency; }
+
+    public int getCustomers() { return customers; }
+
+    public Map<Operation, Integer> getMix() { return mix; }
+
+    public String getResultFile() { return resultFile; }
+
+    public String getForkJvmOptions() { return forkJvmOptions; }
+
+    public Map<ServiceNode, String> getExternalUrls() { return externalUrls; }
+}
@@ -0,0 +1,78 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevecompany.LoadTest.load.EndpointStats;
+import com.stevecompany.LoadTest.load.LoadDriver;
+import com.stevecompany.LoadTest.load.LoadReport;
+import com.stevecompany.LoadTest.load.SeedData;
+import com.stevecompany.LoadTest.stack.LocalStack;
+
+import java.io.File;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Démarre Customer, Account, Transaction et Composite Service sans
+ * infrastructure externe, crée les clients et comptes, applique le mélange
+ * de charge puis affiche le débit et les percentiles de latence par
+ * endpoint. Résultats JSON dans le fichier --result (loadtest-result.json par défaut).
+ *
+ * java -jar target/loadtest.jar [--mode=embedded|fork|external] [--duration=60s]
+ *      [--warmup=10s] [--concurrency=16] [--customers=100]
+ *      [--mix=deposit=35,withdraw=15,transfer=35,dashboard=15] [--result=loadtest-result.json]
+ *      [--fork.jvm-options=-Xmx512m] [--url.customer=... --url.account=... --url.transaction=... --url.composite=...]
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        ObjectMapper mapper = new ObjectMapper();
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        try (LocalStack stack = LocalStack.start(config)) {
+            // Ctrl+C : arrêter aussi les services lancés en processus séparés
+            Thread shutdown = new Thread(stack::close);
+            Runtime.getRuntime().addShutdownHook(shutdown);
+
+            System.out.printf("Seeding %d customers and accounts%n", config.getCustomers());
+            SeedData data = SeedData.create(http, mapper, stack, config.getCustomers());
+
+            System.out.printf("Running %s with %d workers (warmup %ds)%n",
+                    config.getMix(), config.getConcurrency(), config.getWarmup().toSeconds());
+            List<EndpointStats> stats = new LoadDriver(http, stack, data, config.getMix())
+                    .run(config.getConcurrency(), config.getWarmup(), config.getDuration());
+
+            LoadReport report = new LoadReport(settings(config), config.getDuration(), stats, stack.drainedEvents());
+            report.print(System.out);
+            report.writeJson(mapper, new File(config.getResultFile()));
+            System.out.printf("Results written to %s%n", config.getResultFile());
+
+            Runtime.getRuntime().removeShutdownHook(shutdown);
+        }
+        // Les contextes Spring démarrés en mode EMBEDDED laissent des threads non démons
+        System.exit(0);
+    }
+
+    private static Map<String, Object> settings(LoadTestConfig config) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("mode", config.getMode());
+        settings.put("concurrency", config.getConcurrency());
+        settings.put("customers", config.getCustomers());
+        settings.put("mix", config.getMix());
+        return settings;
+    }
+}
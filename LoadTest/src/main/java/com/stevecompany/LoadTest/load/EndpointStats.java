@@ -0,0 +1,44 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest.load;
+
+/**
+ *
+ * @author steve
+ */
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latences (en microsecondes, 3 chiffres significatifs) et erreurs d'un endpoint.
+ * Une erreur est une réponse HTTP >= 400, une exception d'E/S ou une
+ * transaction au statut FAILED ; sa latence est aussi enregistrée.
+ */
+public class EndpointStats {
+
+    private final Operation operation;
+    private final ConcurrentHistogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final LongAdder errors = new LongAdder();
+
+    public EndpointStats(Operation operation) {
+        this.operation = operation;
+    }
+
+    void record(long latencyNanos, boolean error) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), latencies.getHighestTrackableValue()));
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    public Operation getOperation() { return operation; }
+
+    public long getErrors() { return errors.sum(); }
+
+    public Histogram getLatencies() { return latencies; }
+}
@@ -0,0 +1,144 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest.load;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.LoadTest.stack.LocalStack;
+import com.stevecompany.LoadTest.stack.ServiceNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Charge en boucle fermée : chaque worker enchaîne les requêtes sans pause,
+ * l'opération étant tirée selon les poids du mélange. Les requêtes parties
+ * pendant l'échauffement ne sont pas mesurées.
+ */
+public class LoadDriver {
+
+    private static final String FAILED_TRANSACTION = "\"status\":\"FAILED\"";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final LocalStack stack;
+    private final SeedData data;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+
+    public LoadDriver(HttpClient http, LocalStack stack, SeedData data, Map<Operation, Integer> mix) {
+        this.http = http;
+        this.stack = stack;
+        this.data = data;
+        this.operations = mix.keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+            stats.put(operations[i], new EndpointStats(operations[i]));
+        }
+    }
+
+    public List<EndpointStats> run(int concurrency, Duration warmup, Duration duration) throws Exception {
+        long measureStart = System.nanoTime() + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(workers.submit(() -> {
+                    work(measureStart, end);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return new ArrayList<>(stats.values());
+    }
+
+    private void work(long measureStart, long end) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end) {
+            Operation operation = pick(random);
+            HttpRequest request = request(operation, random);
+
+            long started = System.nanoTime();
+            boolean error;
+            try {
+                HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                error = response.statusCode() >= 400
+                        || (operation != Operation.DASHBOARD && response.body().contains(FAILED_TRANSACTION));
+            } catch (IOException e) {
+                error = true;
+            }
+            if (started >= measureStart) {
+                stats.get(operation).record(System.nanoTime() - started, error);
+            }
+        }
+    }
+
+    private Operation pick(ThreadLocalRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private HttpRequest request(Operation operation, ThreadLocalRandom random) {
+        int index = random.nextInt(data.size());
+        String transactions = stack.url(ServiceNode.TRANSACTION) + "/api/transactions";
+        return switch (operation) {
+            case DEPOSIT -> post(transactions + "/deposit",
+                    "{\"accountId\":\"" + data.accountId(index) + "\",\"amount\":25.00}");
+            case WITHDRAW -> post(transactions + "/withdraw",
+                    "{\"accountId\":\"" + data.accountId(index) + "\",\"amount\":10.00}");
+            case TRANSFER -> {
+                // Destination différente de la source
+                int target = (index + 1 + random.nextInt(data.size() - 1)) % data.size();
+                yield post(transactions + "/transfer",
+                        "{\"sourceAccountId\":\"" + data.accountId(index)
+                                + "\",\"targetAccountId\":\"" + data.accountId(target)
+                                + "\",\"amount\":15.00}");
+            }
+            case DASHBOARD -> HttpRequest.newBuilder(
+                            URI.create(stack.url(ServiceNode.COMPOSITE) + "/api/dashboard/" + data.customerId(index)))
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET()
+                    .build();
+        };
+    }
+
+    private static HttpRequest post(String url, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
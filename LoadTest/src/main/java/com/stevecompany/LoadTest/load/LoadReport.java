@@ -0,0 +1,87 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest.load;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Débit et percentiles de latence par endpoint, plus une ligne "ALL"
+ * qui agrège toutes les opérations. Latences en millisecondes.
+ */
+public class LoadReport {
+
+    private final Map<String, Object> settings;
+    private final Duration measured;
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+    private final long drainedEvents;
+
+    public LoadReport(Map<String, Object> settings, Duration measured, List<EndpointStats> stats, long drainedEvents) {
+        this.settings = settings;
+        this.measured = measured;
+        this.drainedEvents = drainedEvents;
+
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        for (EndpointStats endpoint : stats) {
+            rows.add(row(endpoint.getOperation().getEndpoint(), endpoint.getLatencies(), endpoint.getErrors()));
+            all.add(endpoint.getLatencies());
+            allErrors += endpoint.getErrors();
+        }
+        rows.add(row("ALL", all, allErrors));
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%nMeasured %ds, %s%n", measured.toSeconds(), settings);
+        out.printf("%-36s %9s %7s %9s %8s %8s %8s %8s %8s%n",
+                "endpoint", "requests", "errors", "req/s", "p50", "p90", "p99", "p99.9", "max");
+        for (Map<String, Object> row : rows) {
+            out.printf("%-36s %9d %7d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                    row.get("endpoint"), row.get("requests"), row.get("errors"), row.get("throughput"),
+                    row.get("p50"), row.get("p90"), row.get("p99"), row.get("p999"), row.get("max"));
+        }
+        out.printf("Events drained (Notification Service stand-in): %d%n", drainedEvents);
+    }
+
+    public void writeJson(ObjectMapper mapper, File file) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("settings", settings);
+        result.put("measuredSeconds", measured.toSeconds());
+        result.put("endpoints", rows);
+        result.put("drainedEvents", drainedEvents);
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file, result);
+    }
+
+    private Map<String, Object> row(String endpoint, Histogram latencies, long errors) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("endpoint", endpoint);
+        row.put("requests", latencies.getTotalCount());
+        row.put("errors", errors);
+        row.put("throughput", latencies.getTotalCount() / (measured.toNanos() / 1e9));
+        row.put("p50", millis(latencies.getValueAtPercentile(50)));
+        row.put("p90", millis(latencies.getValueAtPercentile(90)));
+        row.put("p99", millis(latencies.getValueAtPercentile(99)));
+        row.put("p999", millis(latencies.getValueAtPercentile(99.9)));
+        row.put("max", millis(latencies.getMaxValue()));
+        return row;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
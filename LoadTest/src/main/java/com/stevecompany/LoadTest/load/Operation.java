@@ -0,0 +1,29 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest.load;
+
+/**
+ *
+ * @author steve
+ */
+
+/**
+ * Opérations du mélange de charge, chacune mesurée séparément.
+ */
+public enum Operation {
+
+    DEPOSIT("POST /api/transactions/deposit"),
+    WITHDRAW("POST /api/transactions/withdraw"),
+    TRANSFER("POST /api/transactions/transfer"),
+    DASHBOARD("GET /api/dashboard/{customerId}");
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() { return endpoint; }
+}
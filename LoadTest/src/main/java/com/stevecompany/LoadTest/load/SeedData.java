@@ -0,0 +1,94 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest.load;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevecompany.LoadTest.stack.LocalStack;
+import com.stevecompany.LoadTest.stack.ServiceNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+/**
+ * Clients et comptes créés par les API publiques avant la mesure :
+ * client créé puis activé (KYC), un compte courant par client,
+ * approvisionné pour que les retraits et transferts ne manquent pas de fonds.
+ */
+public class SeedData {
+
+    private static final String INITIAL_DEPOSIT = "1000000.00";
+
+    private final String[] customerIds;
+    private final String[] accountIds;
+
+    private SeedData(int customers) {
+        this.customerIds = new String[customers];
+        this.accountIds = new String[customers];
+    }
+
+    public static SeedData create(HttpClient http, ObjectMapper mapper, LocalStack stack, int customers)
+            throws IOException, InterruptedException {
+        SeedData data = new SeedData(customers);
+        // Suffixe propre à l'exécution : emails et téléphones sont uniques côté Customer Service
+        long run = System.currentTimeMillis() % 1_000_000;
+        String customerUrl = stack.url(ServiceNode.CUSTOMER) + "/api/customers";
+
+        for (int i = 0; i < customers; i++) {
+            JsonNode customer = call(http, mapper, "POST", customerUrl, mapper.writeValueAsString(Map.of(
+                    "firstName", "Load",
+                    "lastName", "Test" + i,
+                    "email", "load." + run + "." + i + "@willbank.test",
+                    "phone", String.format("+237%06d%05d", run, i),
+                    "address", "Douala")));
+            String customerId = customer.get("id").asText();
+            call(http, mapper, "PUT", customerUrl + "/" + customerId + "/activate", null);
+
+            JsonNode account = call(http, mapper, "POST", stack.url(ServiceNode.ACCOUNT) + "/api/accounts",
+                    mapper.writeValueAsString(Map.of("customerId", customerId, "type", "CURRENT")));
+            String accountId = account.get("id").asText();
+            JsonNode deposit = call(http, mapper, "POST", stack.url(ServiceNode.TRANSACTION) + "/api/transactions/deposit",
+                    mapper.writeValueAsString(Map.of("accountId", accountId, "amount", INITIAL_DEPOSIT)));
+            if ("FAILED".equals(deposit.path("status").asText())) {
+                throw new IllegalStateException("Seeding failed: initial deposit on " + accountId
+                        + " - " + deposit.path("failureReason").asText());
+            }
+
+            data.customerIds[i] = customerId;
+            data.accountIds[i] = accountId;
+        }
+        return data;
+    }
+
+    public int size() { return customerIds.length; }
+
+    public String customerId(int index) { return customerIds[index]; }
+
+    public String accountId(int index) { return accountIds[index]; }
+
+    private static JsonNode call(HttpClient http, ObjectMapper mapper, String method, String url, String body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .method(method, body != null
+                        ? HttpRequest.BodyPublishers.ofString(body)
+                        : HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Seeding failed: " + method + " " + url
+                    + " -> " + response.statusCode() + " " + response.body());
+        }
+        return mapper.readTree(response.body());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest.stack;
+
+/**
+ *
+ * @author steve
+ */
+import org.apache.qpid.server.SystemLauncher;
+
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Broker AMQP 0-9-1 (Qpid Broker-J) en mémoire, à la place de RabbitMQ.
+ * Un seul virtual host "default", utilisateur guest/guest.
+ */
+public class EmbeddedBroker implements AutoCloseable {
+
+    public static final String VIRTUAL_HOST = "default";
+    private final SystemLauncher launcher = new SystemLauncher();
+
+    public EmbeddedBroker(int port) throws Exception {
+        Map<String, String> context = new HashMap<>();
+        context.put("qpid.amqp_port", String.valueOf(port));
+        context.put("qpid.work_dir", Files.createTempDirectory("qpid-loadtest").toString());
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("type", "Memory");
+        attributes.put("initialConfigurationLocation",
+                EmbeddedBroker.class.getResource("/qpid-config.json").toExternalForm());
+        attributes.put("startupLoggedToSystemOut", false);
+        attributes.put("context", context);
+        launcher.startup(attributes);
+    }
+
+    @Override
+    public void close() {
+        launcher.shutdown();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest.stack;
+
+/**
+ *
+ * @author steve
+ */
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tient le rôle de Notification Service : consomme les événements que
+ * personne d'autre ne lit, pour que les files du broker en mémoire ne
+ * grossissent pas pendant le test. Le nombre de messages reçus est reporté.
+ */
+public class EventDrain implements AutoCloseable {
+
+    private static final String[] QUEUES = {
+            "customer.created.queue",
+            "customer.profile.updated.queue",
+            "customer.status.changed.queue",
+            "account.created.queue",
+            "account.updated.queue",
+            "transaction.completed.queue",
+            "transaction.failed.queue"
+    };
+
+    private final CachingConnectionFactory connectionFactory;
+    private final SimpleMessageListenerContainer container;
+    private final LongAdder received = new LongAdder();
+
+    public EventDrain(int amqpPort) {
+        connectionFactory = new CachingConnectionFactory("localhost", amqpPort);
+        connectionFactory.setUsername("guest");
+        connectionFactory.setPassword("guest");
+        connectionFactory.setVirtualHost(EmbeddedBroker.VIRTUAL_HOST);
+
+        container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueueNames(QUEUES);
+        // Les files de Customer Service ne sont déclarées qu'au premier événement publié
+        container.setMissingQueuesFatal(false);
+        container.setAcknowledgeMode(AcknowledgeMode.NONE);
+        container.setMessageListener(message -> received.increment());
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    public long received() { return received.sum(); }
+
+    @Override
+    public void close() {
+        container.stop();
+        container.destroy();
+        connectionFactory.destroy();
+    }
+}
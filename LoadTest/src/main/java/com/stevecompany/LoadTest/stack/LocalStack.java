@@ -0,0 +1,204 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest.stack;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.LoadTest.LoadTestConfig;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pile locale des services : H2 à la place de MySQL, Qpid à la place de
+ * RabbitMQ, découverte statique (SimpleDiscoveryClient) à la place d'Eureka.
+ * En mode EXTERNAL rien n'est démarré, seules les URL sont reprises.
+ */
+public class LocalStack implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+    private static final String BOOT_PROPERTIES_LAUNCHER = "org.springframework.boot.loader.launch.PropertiesLauncher";
+
+    private final Map<ServiceNode, String> urls = new EnumMap<>(ServiceNode.class);
+    private final Deque<AutoCloseable> resources = new ArrayDeque<>();
+    private EventDrain drain;
+
+    private LocalStack() {
+    }
+
+    public static LocalStack start(LoadTestConfig config) throws Exception {
+        LocalStack stack = new LocalStack();
+        if (config.getMode() == LoadTestConfig.Mode.EXTERNAL) {
+            stack.urls.putAll(config.getExternalUrls());
+            return stack;
+        }
+
+        try {
+            int amqpPort = freePort();
+            stack.resources.push(new EmbeddedBroker(amqpPort));
+
+            Map<ServiceNode, Integer> ports = new EnumMap<>(ServiceNode.class);
+            for (ServiceNode node : ServiceNode.values()) {
+                ports.put(node, freePort());
+                stack.urls.put(node, "http://localhost:" + ports.get(node));
+            }
+
+            for (ServiceNode node : ServiceNode.values()) {
+                System.out.printf("Starting %s on port %d (%s)%n",
+                        node.getApplicationName(), ports.get(node), config.getMode());
+                Map<String, String> properties = standInProperties(node, ports, amqpPort);
+                BooleanSupplier alive = () -> true;
+                if (config.getMode() == LoadTestConfig.Mode.FORK) {
+                    Process process = fork(node, properties, config.getForkJvmOptions());
+                    stack.resources.push(() -> {
+                        process.destroy();
+                        process.waitFor();
+                    });
+                    alive = process::isAlive;
+                } else {
+                    ConfigurableApplicationContext context = node.start(properties);
+                    stack.resources.push(context::close);
+                }
+                waitForPort(ports.get(node), node, alive);
+            }
+
+            stack.drain = new EventDrain(amqpPort);
+            stack.resources.push(stack.drain);
+            return stack;
+        } catch (Exception e) {
+            stack.close();
+            throw e;
+        }
+    }
+
+    public String url(ServiceNode node) { return urls.get(node); }
+
+    /** Événements consommés à la place de Notification Service (0 en mode EXTERNAL) */
+    public long drainedEvents() {
+        return drain != null ? drain.received() : 0;
+    }
+
+    /**
+     * Propriétés de remplacement d'un service : elles priment sur son application.properties.
+     */
+    static Map<String, String> standInProperties(ServiceNode node, Map<ServiceNode, Integer> ports, int amqpPort) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", String.valueOf(ports.get(node)));
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+
+        // Découverte statique : les RestTemplate @LoadBalanced résolvent les serviceId sans Eureka
+        properties.put("eureka.client.enabled", "false");
+        for (ServiceNode target : ServiceNode.values()) {
+            properties.put("spring.cloud.discovery.client.simple.instances[" + target.getServiceId() + "][0].uri",
+                    "http://localhost:" + ports.get(target));
+        }
+
+        if (node.getDatabase() != null) {
+            properties.put("spring.datasource.url", "jdbc:h2:mem:" + node.getDatabase()
+                    + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+            properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            properties.put("spring.datasource.username", "sa");
+            properties.put("spring.datasource.password", "");
+            properties.put("spring.jpa.hibernate.ddl-auto", "create");
+            properties.put("spring.jpa.show-sql", "false");
+            properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+            properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+
+            properties.put("spring.rabbitmq.host", "localhost");
+            properties.put("spring.rabbitmq.port", String.valueOf(amqpPort));
+            properties.put("spring.rabbitmq.username", "guest");
+            properties.put("spring.rabbitmq.password", "guest");
+            properties.put("spring.rabbitmq.virtual-host", EmbeddedBroker.VIRTUAL_HOST);
+        }
+        return properties;
+    }
+
+    /**
+     * Relance le classpath courant sur ServiceLauncher ; la sortie du service
+     * est écrite dans loadtest-<service>.log.
+     */
+    private static Process fork(ServiceNode node, Map<String, String> properties, String jvmOptions)
+            throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (!jvmOptions.isBlank()) {
+            command.addAll(Arrays.asList(jvmOptions.trim().split("\\s+")));
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        if (launchedFromBootJar()) {
+            command.add("-Dloader.main=" + ServiceLauncher.class.getName());
+            command.add(BOOT_PROPERTIES_LAUNCHER);
+        } else {
+            command.add(ServiceLauncher.class.getName());
+        }
+        command.add(node.name());
+        properties.forEach((key, value) -> command.add("--" + key + "=" + value));
+
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File("loadtest-" + node.name().toLowerCase() + ".log"))
+                .start();
+    }
+
+    private static boolean launchedFromBootJar() {
+        return LocalStack.class.getClassLoader().getClass().getName().startsWith("org.springframework.boot.loader");
+    }
+
+    /**
+     * Tomcat n'ouvre son port qu'une fois le contexte entièrement démarré
+     */
+    private static void waitForPort(int port, ServiceNode node, BooleanSupplier alive) throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!alive.getAsBoolean()) {
+                throw new IllegalStateException(node.getApplicationName() + " exited during startup, see loadtest-"
+                        + node.name().toLowerCase() + ".log");
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("localhost", port), 200);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(200);
+            }
+        }
+        throw new IllegalStateException(node.getApplicationName() + " did not start within " + STARTUP_TIMEOUT);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() {
+        while (!resources.isEmpty()) {
+            try {
+                resources.pop().close();
+            } catch (Exception e) {
+                System.err.println("Error while stopping load-test stack: " + e.getMessage());
+            }
+        }
+    }
+}
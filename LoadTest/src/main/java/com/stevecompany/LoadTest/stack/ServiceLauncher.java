@@ -0,0 +1,30 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest.stack;
+
+/**
+ *
+ * @author steve
+ */
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Point d'entrée des processus lancés en mode FORK :
+ * ServiceLauncher <CUSTOMER|ACCOUNT|TRANSACTION|COMPOSITE> [--clé=valeur ...]
+ */
+public class ServiceLauncher {
+
+    public static void main(String[] args) {
+        ServiceNode node = ServiceNode.valueOf(args[0]);
+        Map<String, String> overrides = new LinkedHashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i].substring(2);
+            int separator = arg.indexOf('=');
+            overrides.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        node.start(overrides);
+    }
+}
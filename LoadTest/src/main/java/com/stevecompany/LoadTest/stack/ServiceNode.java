@@ -0,0 +1,100 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.LoadTest.stack;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.AccountService.AccountServiceApplication;
+import com.stevecompany.CompositeService.CompositeServiceApplication;
+import com.stevecompany.CustomerService.CustomerServiceApplication;
+import com.stevecompany.TransactionService.TransactionServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Services démarrés par le test de charge, dans l'ordre de leurs dépendances
+ * (Account appelle Customer, Transaction appelle Account, Composite appelle les trois).
+ */
+public enum ServiceNode {
+
+    CUSTOMER("customer-service-willbank", "CUSTOMER-SERVICE-WILLBANK", "customers", CustomerServiceApplication.class),
+    ACCOUNT("account-service-willbank", "ACCOUNT-SERVICE-WILLBANK", "accounts", AccountServiceApplication.class),
+    TRANSACTION("transaction-service-willbank", "TRANSACTION-SERVICE-WILLBANK", "transactions", TransactionServiceApplication.class),
+    COMPOSITE("composite-service-willbank", "COMPOSITE-SERVICE-WILLBANK", null, CompositeServiceApplication.class);
+
+    private final String applicationName;
+    private final String serviceId;
+    private final String database;
+    private final Class<?> mainClass;
+
+    ServiceNode(String applicationName, String serviceId, String database, Class<?> mainClass) {
+        this.applicationName = applicationName;
+        this.serviceId = serviceId;
+        this.database = database;
+        this.mainClass = mainClass;
+    }
+
+    public String getApplicationName() { return applicationName; }
+
+    /** Nom utilisé dans les URL des RestTemplate @LoadBalanced (http://ACCOUNT-SERVICE-WILLBANK/...) */
+    public String getServiceId() { return serviceId; }
+
+    /** Base H2 du service (null : pas de persistance) */
+    public String getDatabase() { return database; }
+
+    /**
+     * Démarre le service avec son application.properties, surchargé par les
+     * propriétés de remplacement. Tous les services partagent le classpath :
+     * spring.config.name pointe vers un nom sans fichier pour qu'aucun
+     * application.properties ne soit pris au hasard parmi les quatre jars.
+     */
+    public ConfigurableApplicationContext start(Map<String, String> overrides) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.config.name=" + applicationName);
+        overrides.forEach((key, value) -> args.add("--" + key + "=" + value));
+
+        return new SpringApplicationBuilder(mainClass)
+                .properties(serviceProperties())
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * application.properties du service, retrouvé sur le classpath par son
+     * spring.application.name. Les niveaux de log sont laissés au test de charge.
+     */
+    Map<String, Object> serviceProperties() {
+        try {
+            Enumeration<URL> resources = mainClass.getClassLoader().getResources("application.properties");
+            while (resources.hasMoreElements()) {
+                Properties properties = new Properties();
+                try (InputStream in = resources.nextElement().openStream()) {
+                    properties.load(in);
+                }
+                if (applicationName.equals(properties.getProperty("spring.application.name"))) {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    properties.stringPropertyNames().stream()
+                            .filter(name -> !name.startsWith("logging.level."))
+                            .forEach(name -> result.put(name, properties.getProperty(name)));
+                    return result;
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read application.properties of " + applicationName, e);
+        }
+        throw new IllegalStateException("application.properties of " + applicationName + " not found on classpath");
+    }
+}
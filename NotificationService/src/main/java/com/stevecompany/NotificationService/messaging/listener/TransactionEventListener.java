@@ -9,23 +9,30 @@ package com.stevecompany.NotificationService.messaging.listener;
  * @author steve
  */
 import com.stevecompany.NotificationService.messaging.event.TransactionCompletedEvent;
+import com.stevecompany.NotificationService.metrics.OperationMetrics;
 import com.stevecompany.NotificationService.service.NotificationService;
+import io.micrometer.core.instrument.Tags;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
 @Component
 public class TransactionEventListener {
 
+    private static final Tags TAGS = Tags.of("event", "TransactionCompletedEvent");
     private final NotificationService notificationService;
+    private final OperationMetrics metrics;
 
-    public TransactionEventListener(NotificationService notificationService) {
+    public TransactionEventListener(NotificationService notificationService, OperationMetrics metrics) {
         this.notificationService = notificationService;
+        this.metrics = metrics;
     }
 
     @RabbitListener(queues = "transaction.completed.queue")
     public void onTransactionCompleted(TransactionCompletedEvent event) {
-        String msg = "Transaction " + event.type + " of " + event.amount + " completed.";
-        notificationService.sendEmail(event.customerId, "Transaction Alert", msg);
-        notificationService.sendPush(event.customerId, "Transaction Alert", msg);
+        metrics.run("events.consumed", TAGS, () -> {
+            String msg = "Transaction " + event.type + " of " + event.amount + " completed.";
+            notificationService.sendEmail(event.customerId, "Transaction Alert", msg);
+            notificationService.sendPush(event.customerId, "Transaction Alert", msg);
+        });
     }
 }
\ No newline at end of file
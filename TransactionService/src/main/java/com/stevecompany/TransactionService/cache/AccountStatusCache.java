@@ -0,0 +1,67 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.cache;
+
+/**
+ *
+ * @author steve
+ */
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stevecompany.TransactionService.client.AccountServiceClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Cache borné (taille + TTL) du statut des comptes.
+ * Rempli à la demande depuis Account Service et invalidé par les
+ * événements account.updated ; métriques hit/miss exposées via Micrometer
+ * sous le nom de cache "account.status".
+ */
+@Component
+public class AccountStatusCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountStatusCache.class);
+    private static final String ACTIVE = "ACTIVE";
+
+    private final AccountServiceClient accountClient;
+    private final Cache<UUID, String> cache;
+
+    public AccountStatusCache(AccountServiceClient accountClient,
+                              MeterRegistry meterRegistry,
+                              @Value("${account.status-cache.max-size:10000}") long maxSize,
+                              @Value("${account.status-cache.ttl:5m}") Duration ttl) {
+        this.accountClient = accountClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "account.status");
+    }
+
+    /**
+     * Vérifie qu'un compte existe et est actif ; seul un miss appelle Account Service.
+     * Un compte introuvable (ou une erreur d'appel) n'est pas mis en cache.
+     */
+    public boolean isActive(UUID accountId) {
+        if (accountId == null) {
+            return false;
+        }
+        return ACTIVE.equals(cache.get(accountId, accountClient::getStatus));
+    }
+
+    public void invalidate(UUID accountId) {
+        log.info("Invalidating cached status for account {}", accountId);
+        cache.invalidate(accountId);
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.client;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Champs de GET /api/accounts/{id} (AccountDTO d'Account Service) utiles ici ;
+ * le solde est lu directement en BigDecimal depuis le JSON.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AccountResponse(UUID id, String status, BigDecimal balance) {
+}
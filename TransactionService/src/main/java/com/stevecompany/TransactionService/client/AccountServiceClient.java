@@ -9,48 +9,74 @@ package com.stevecompany.TransactionService.client;
  * @author steve
  */
 import com.stevecompany.TransactionService.exception.BusinessException;
+import com.stevecompany.TransactionService.exception.OutcomeUnknownException;
+import com.stevecompany.TransactionService.exception.ServiceUnavailableException;
+import com.stevecompany.TransactionService.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Component
 public class AccountServiceClient {
 
     private static final Logger log = LoggerFactory.getLogger(AccountServiceClient.class);
-    private static final String ACCOUNT_SERVICE_URL = "http://ACCOUNT-SERVICE-WILLBANK";
     private static final String INTERNAL_TOKEN = "INTERNAL_SECURE_TOKEN";
+    private static final String OPERATION_ID_HEADER = "X-Operation-Id";
+    private static final String CLIENT_CALLS = "client.calls";
 
     private final RestTemplate restTemplate;
+    private final AccountServiceResilience resilience;
+    private final OperationMetrics metrics;
+    private final String accountServiceUrl;
 
-    public AccountServiceClient(RestTemplate restTemplate) {
+    public AccountServiceClient(RestTemplate restTemplate,
+                                AccountServiceResilience resilience,
+                                OperationMetrics metrics,
+                                @Value("${account.service.url:http://ACCOUNT-SERVICE-WILLBANK}") String accountServiceUrl) {
         this.restTemplate = restTemplate;
+        this.resilience = resilience;
+        this.metrics = metrics;
+        this.accountServiceUrl = accountServiceUrl;
     }
 
     /**
      * Vérifie si un compte existe et est actif
      */
     public boolean accountExists(UUID accountId) {
-        String url = ACCOUNT_SERVICE_URL + "/api/accounts/" + accountId;
-        log.info("Checking if account {} exists", accountId);
-        
+        return "ACTIVE".equals(getStatus(accountId));
+    }
+
+    /**
+     * Récupère le statut d'un compte (null si introuvable) ;
+     * ServiceUnavailableException si Account Service ne répond pas
+     */
+    public String getStatus(UUID accountId) {
+        String url = accountServiceUrl + "/api/accounts/" + accountId;
+        log.info("Getting status for account {}", accountId);
+
         try {
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-            String status = (String) response.getBody().get("status");
-            boolean isActive = "ACTIVE".equals(status);
-            log.info("Account {} exists and is active: {}", accountId, isActive);
-            return isActive;
-        } catch (Exception e) {
-            log.error("Account {} not found or error: {}", accountId, e.getMessage());
-            return false;
+            AccountResponse account = timed("getStatus",
+                    () -> resilience.read(() -> restTemplate.getForObject(url, AccountResponse.class)));
+            log.info("Account {} status: {}", accountId, account.status());
+            return account.status();
+        } catch (HttpClientErrorException e) {
+            log.error("Account {} not found: {}", accountId, e.getMessage());
+            return null;
         }
     }
 
@@ -58,66 +84,150 @@ public class AccountServiceClient {
      * Récupère le solde d'un compte
      */
     public BigDecimal getBalance(UUID accountId) {
-        String url = ACCOUNT_SERVICE_URL + "/api/accounts/" + accountId;
+        String url = accountServiceUrl + "/api/accounts/" + accountId;
         log.info("Getting balance for account {}", accountId);
         
         try {
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-            Object balanceObj = response.getBody().get("balance");
-            
-            if (balanceObj instanceof Number) {
-                return new BigDecimal(balanceObj.toString());
+            AccountResponse account = timed("getBalance",
+                    () -> resilience.read(() -> restTemplate.getForObject(url, AccountResponse.class)));
+            if (account.balance() == null) {
+                throw new BusinessException("Invalid balance format for account " + accountId);
             }
-            throw new BusinessException("Invalid balance format for account " + accountId);
-        } catch (Exception e) {
+            return account.balance();
+        } catch (HttpClientErrorException e) {
             log.error("Error getting balance for account {}: {}", accountId, e.getMessage());
             throw new BusinessException("Cannot retrieve balance for account " + accountId);
         }
     }
 
     /**
-     * Crédite un compte (ajoute de l'argent)
+     * Crédite un compte (ajoute de l'argent) en un seul appel atomique.
+     * operationId : Account Service n'applique qu'une fois un même identifiant
      */
-    public void credit(UUID accountId, BigDecimal amount) {
+    public void credit(UUID accountId, BigDecimal amount, String operationId) {
         log.info("Crediting {} to account {}", amount, accountId);
-        updateBalance(accountId, getBalance(accountId).add(amount));
+        applyDelta(accountId, amount, "credit", operationId);
     }
 
     /**
-     * Débite un compte (retire de l'argent)
+     * Débite un compte (retire de l'argent) en un seul appel atomique,
+     * le contrôle de provision étant fait par Account Service
      */
-    public void debit(UUID accountId, BigDecimal amount) {
+    public void debit(UUID accountId, BigDecimal amount, String operationId) {
         log.info("Debiting {} from account {}", amount, accountId);
-        BigDecimal currentBalance = getBalance(accountId);
-        BigDecimal newBalance = currentBalance.subtract(amount);
-        
-        if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-            throw new BusinessException("Insufficient balance. Current: " + currentBalance + ", Required: " + amount);
+        applyDelta(accountId, amount, "debit", operationId);
+    }
+
+    /**
+     * Transfère un montant entre deux comptes en un seul appel atomique
+     * (les deux mouvements sont appliqués dans une même transaction côté Account Service)
+     */
+    public void transfer(UUID sourceAccountId, UUID targetAccountId, BigDecimal amount, String operationId) {
+        log.info("Transferring {} from account {} to account {}", amount, sourceAccountId, targetAccountId);
+        String url = accountServiceUrl + "/api/accounts/transfers";
+        Map<String, Object> body = Map.of(
+                "sourceAccountId", sourceAccountId,
+                "targetAccountId", targetAccountId,
+                "amount", amount
+        );
+        postInternal("transfer", url, body, "transfer from account " + sourceAccountId, operationId);
+    }
+
+    /**
+     * Applique un lot de mouvements en un seul appel (une transaction côté Account Service).
+     * Chaque mouvement est une Map debitAccountId / creditAccountId / amount ;
+     * le résultat contient un élément par mouvement, dans le même ordre.
+     * operationId : un lot renvoyé avec le même identifiant n'est pas réappliqué,
+     * Account Service renvoie les résultats de la première application.
+     */
+    public List<MovementResult> applyMovements(List<Map<String, Object>> movements, String operationId) {
+        String url = accountServiceUrl + "/api/accounts/movements/batch";
+        log.info("Applying batch of {} movements", movements.size());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-INTERNAL-TOKEN", INTERNAL_TOKEN);
+        headers.set(OPERATION_ID_HEADER, operationId);
+        headers.set("Content-Type", "application/json");
+
+        HttpEntity<List<Map<String, Object>>> request = new HttpEntity<>(movements, headers);
+
+        try {
+            ResponseEntity<MovementResult[]> response = timed("applyMovements", () -> resilience.write(
+                    () -> restTemplate.exchange(url, HttpMethod.POST, request, MovementResult[].class)));
+            MovementResult[] results = response.getBody();
+            if (results == null || results.length != movements.size()) {
+                // Lot accepté (2xx) mais résultats illisibles : issue de chaque mouvement inconnue
+                throw new OutcomeUnknownException("Invalid batch response from Account Service");
+            }
+            return Arrays.asList(results);
+        } catch (HttpClientErrorException e) {
+            String message = extractErrorMessage(e);
+            log.error("Error applying batch of {} movements: {}", movements.size(), message);
+            throw new BusinessException(message);
+        } catch (ServiceUnavailableException e) {
+            log.error("Error applying batch of {} movements: {}", movements.size(), e.getMessage());
+            throw e;
         }
-        
-        updateBalance(accountId, newBalance);
     }
 
     /**
-     * Met à jour le solde d'un compte (appel interne sécurisé)
+     * Applique un mouvement sur le solde d'un compte (appel interne sécurisé)
      */
-    private void updateBalance(UUID accountId, BigDecimal newBalance) {
-        String url = ACCOUNT_SERVICE_URL + "/api/accounts/" + accountId + "/balance";
-        log.info("Updating balance for account {} to {}", accountId, newBalance);
-        
+    private void applyDelta(UUID accountId, BigDecimal amount, String operation, String operationId) {
+        String url = accountServiceUrl + "/api/accounts/" + accountId + "/" + operation;
+        postInternal(operation, url, Map.of("amount", amount), operation + " on account " + accountId, operationId);
+    }
+
+    private void postInternal(String operation, String url, Map<String, ?> body, String description,
+                              String operationId) {
         HttpHeaders headers = new HttpHeaders();
         headers.set("X-INTERNAL-TOKEN", INTERNAL_TOKEN);
+        headers.set(OPERATION_ID_HEADER, operationId);
         headers.set("Content-Type", "application/json");
-        
-        Map<String, BigDecimal> body = Map.of("balance", newBalance);
-        HttpEntity<Map<String, BigDecimal>> request = new HttpEntity<>(body, headers);
-        
+
+        HttpEntity<Map<String, ?>> request = new HttpEntity<>(body, headers);
+
+        try {
+            timed(operation, () -> resilience.write(() -> restTemplate.exchange(url, HttpMethod.POST, request, Map.class)));
+            log.info("{} applied successfully", description);
+        } catch (HttpClientErrorException e) {
+            // Refus d'Account Service (4xx) : le mouvement n'a pas été appliqué
+            String message = extractErrorMessage(e);
+            log.error("Error applying {}: {}", description, message);
+            throw new BusinessException(message);
+        } catch (ServiceUnavailableException e) {
+            log.error("Error applying {}: {}", description, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Latence de l'appel vu par l'appelant : retries et attente du bulkhead comprises
+     */
+    private <T> T timed(String operation, Supplier<T> call) {
+        return metrics.record(CLIENT_CALLS, Tags.of("target", "account-service", "operation", operation), call);
+    }
+
+    private String extractErrorMessage(HttpClientErrorException e) {
         try {
-            restTemplate.exchange(url, HttpMethod.PUT, request, Map.class);
-            log.info("Balance updated successfully for account {}", accountId);
-        } catch (Exception e) {
-            log.error("Error updating balance for account {}: {}", accountId, e.getMessage());
-            throw new BusinessException("Failed to update account balance");
+            Map<?, ?> error = e.getResponseBodyAs(Map.class);
+            if (error != null && error.get("message") != null) {
+                return error.get("message").toString();
+            }
+        } catch (Exception ignored) {
+            // corps de réponse non JSON
         }
+        return "Failed to update account balance";
+    }
+
+    public static class MovementResult {
+        private boolean applied;
+        private String reason;
+
+        public boolean isApplied() { return applied; }
+        public void setApplied(boolean applied) { this.applied = applied; }
+
+        public String getReason() { return reason; }
+        public void setReason(String reason) { this.reason = reason; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.client;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.exception.OutcomeUnknownException;
+import com.stevecompany.TransactionService.exception.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Protection des appels vers Account Service :
+ * - bulkhead : nombre d'appels simultanés borné, rejet immédiat au-delà ;
+ * - circuit breaker : ouvert sur erreurs réseau / 5xx / appels lents, échec immédiat tant qu'il est ouvert ;
+ * - retry avec backoff exponentiel aléatoire (jitter), limité aux erreurs transitoires.
+ * Les erreurs 4xx (refus métier) ne comptent pas comme des pannes.
+ * Une écriture envoyée sans réponse exploitable (délai dépassé, 5xx) lève
+ * OutcomeUnknownException : elle a pu être appliquée. Les autres échecs
+ * (circuit ouvert, bulkhead plein, connexion refusée) garantissent qu'elle
+ * n'a pas été envoyée.
+ *
+ * Métriques : resilience4j.circuitbreaker.*, resilience4j.bulkhead.*, resilience4j.retry.*
+ * (name=account-service), plus account.client.circuit.transitions et account.client.bulkhead.rejected.
+ */
+@Component
+public class AccountServiceResilience {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountServiceResilience.class);
+    private static final String NAME = "account-service";
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Retry readRetry;
+    private final Retry writeRetry;
+
+    public AccountServiceResilience(
+            MeterRegistry meterRegistry,
+            @Value("${account.client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${account.client.circuit-breaker.slow-call-threshold:1s}") Duration slowCallThreshold,
+            @Value("${account.client.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${account.client.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${account.client.circuit-breaker.open-duration:10s}") Duration openDuration,
+            @Value("${account.client.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+            @Value("${account.client.retry.max-attempts:3}") int maxAttempts,
+            @Value("${account.client.retry.initial-backoff:100ms}") Duration initialBackoff) {
+
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(Math.max(1, minimumCalls / 2))
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .recordException(AccountServiceResilience::isOutage)
+                .build());
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        IntervalFunction backoff = IntervalFunction.ofExponentialRandomBackoff(initialBackoff, 2.0, 0.5);
+        RetryRegistry retryRegistry = RetryRegistry.ofDefaults();
+
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        this.bulkhead = bulkheadRegistry.bulkhead(NAME);
+        // Lectures : erreurs de connexion et 502/503/504 ; un timeout de lecture n'est pas rejoué
+        this.readRetry = retryRegistry.retry(NAME + "-read", RetryConfig.custom()
+                .maxAttempts(maxAttempts)
+                .intervalFunction(backoff)
+                .retryOnException(e -> isConnectFailure(e) || isGatewayError(e))
+                .build());
+        // Écritures (non idempotentes) : seulement si la requête n'a pas pu être envoyée
+        this.writeRetry = retryRegistry.retry(NAME + "-write", RetryConfig.custom()
+                .maxAttempts(maxAttempts)
+                .intervalFunction(backoff)
+                .retryOnException(AccountServiceResilience::isConnectFailure)
+                .build());
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+        TaggedRetryMetrics.ofRetryRegistry(retryRegistry).bindTo(meterRegistry);
+
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            log.warn("Account Service circuit breaker: {}", event.getStateTransition());
+            Counter.builder("account.client.circuit.transitions")
+                    .tag("from", event.getStateTransition().getFromState().name())
+                    .tag("to", event.getStateTransition().getToState().name())
+                    .register(meterRegistry)
+                    .increment();
+        });
+        Counter bulkheadRejected = Counter.builder("account.client.bulkhead.rejected").register(meterRegistry);
+        bulkhead.getEventPublisher().onCallRejected(event -> bulkheadRejected.increment());
+    }
+
+    /**
+     * Appel de lecture (GET) : rejouable
+     */
+    public <T> T read(Supplier<T> call) {
+        return execute(readRetry, call, false);
+    }
+
+    /**
+     * Appel d'écriture (mouvement de solde) : rejoué seulement sur échec de connexion
+     */
+    public <T> T write(Supplier<T> call) {
+        return execute(writeRetry, call, true);
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> T execute(Retry retry, Supplier<T> call, boolean write) {
+        Supplier<T> decorated = Retry.decorateSupplier(retry,
+                CircuitBreaker.decorateSupplier(circuitBreaker,
+                        Bulkhead.decorateSupplier(bulkhead, call)));
+        try {
+            return decorated.get();
+        } catch (CallNotPermittedException e) {
+            throw new ServiceUnavailableException("Account Service unavailable (circuit open)");
+        } catch (BulkheadFullException e) {
+            throw new ServiceUnavailableException("Account Service unavailable (too many concurrent calls)");
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            if (write && !isConnectFailure(e)) {
+                throw new OutcomeUnknownException("Account Service outcome unknown: " + e.getMessage());
+            }
+            throw new ServiceUnavailableException("Account Service unavailable: " + e.getMessage());
+        }
+    }
+
+    // Panne côté Account Service (réseau, délai dépassé, 5xx) ; les 4xx sont des réponses normales
+    private static boolean isOutage(Throwable e) {
+        return e instanceof ResourceAccessException || e instanceof HttpServerErrorException;
+    }
+
+    private static boolean isConnectFailure(Throwable e) {
+        return e instanceof ResourceAccessException && e.getCause() instanceof ConnectException;
+    }
+
+    private static boolean isGatewayError(Throwable e) {
+        return e instanceof HttpServerErrorException se
+                && (se.getStatusCode().value() == HttpStatus.BAD_GATEWAY.value()
+                    || se.getStatusCode().value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                    || se.getStatusCode().value() == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+}
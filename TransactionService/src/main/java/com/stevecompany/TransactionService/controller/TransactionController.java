@@ -8,21 +8,41 @@ package com.stevecompany.TransactionService.controller;
  *
  * @author steve
  */
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevecompany.TransactionService.dto.BatchItemDTO;
+import com.stevecompany.TransactionService.dto.BatchResponseDTO;
+import com.stevecompany.TransactionService.dto.TransactionPageDTO;
 import com.stevecompany.TransactionService.dto.TransactionRequestDTO;
+import com.stevecompany.TransactionService.dto.TransactionSearchCriteria;
 import com.stevecompany.TransactionService.dto.TransactionResponseDTO;
 import com.stevecompany.TransactionService.dto.TransferRequestDTO;
 import com.stevecompany.TransactionService.entity.Transaction;
+import com.stevecompany.TransactionService.exception.BusinessException;
+import com.stevecompany.TransactionService.service.IdempotencyService;
+import com.stevecompany.TransactionService.service.StatementExportService;
 import com.stevecompany.TransactionService.service.TransactionService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -32,47 +52,115 @@ import java.util.stream.Collectors;
 public class TransactionController {
 
     private static final Logger log = LoggerFactory.getLogger(TransactionController.class);
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final int MAX_RECENT_LIMIT = 100;
+    // Taille maximale de la liste IN de /recent
+    private static final int MAX_RECENT_ACCOUNTS = 50;
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    // Sujet du JWT vérifié, posé par le gateway : portée des clés d'idempotence
+    private static final String USER_ID_HEADER = "X-User-Id";
     private final TransactionService service;
+    private final StatementExportService statementExportService;
+    private final IdempotencyService idempotency;
+    private final ObjectMapper objectMapper;
+    private final Duration exportTimeout;
 
-    public TransactionController(TransactionService service) {
+    public TransactionController(TransactionService service,
+                                 StatementExportService statementExportService,
+                                 IdempotencyService idempotency,
+                                 ObjectMapper objectMapper,
+                                 @Value("${statement.export.timeout:10m}") Duration exportTimeout) {
         this.service = service;
+        this.statementExportService = statementExportService;
+        this.idempotency = idempotency;
+        this.objectMapper = objectMapper;
+        this.exportTimeout = exportTimeout;
     }
 
     @PostMapping("/deposit")
-    public ResponseEntity<TransactionResponseDTO> deposit(@RequestBody TransactionRequestDTO dto) {
+    public ResponseEntity<TransactionResponseDTO> deposit(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+            @RequestBody TransactionRequestDTO dto) {
         log.info("Received POST /api/transactions/deposit - accountId: {}, amount: {}",
                 dto.getAccountId(), dto.getAmount());
-        TransactionResponseDTO response = service.deposit(dto);
+        TransactionResponseDTO response = idempotency.execute(userId, idempotencyKey, "DEPOSIT", dto,
+                (operationId, beforeCommit) -> service.deposit(dto, operationId, beforeCommit));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @PostMapping("/withdraw")
-    public ResponseEntity<TransactionResponseDTO> withdraw(@RequestBody TransactionRequestDTO dto) {
+    public ResponseEntity<TransactionResponseDTO> withdraw(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+            @RequestBody TransactionRequestDTO dto) {
         log.info("Received POST /api/transactions/withdraw - accountId: {}, amount: {}",
                 dto.getAccountId(), dto.getAmount());
-        TransactionResponseDTO response = service.withdraw(dto);
+        TransactionResponseDTO response = idempotency.execute(userId, idempotencyKey, "WITHDRAWAL", dto,
+                (operationId, beforeCommit) -> service.withdraw(dto, operationId, beforeCommit));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<TransactionResponseDTO> transfer(@RequestBody TransferRequestDTO dto) {
+    public ResponseEntity<TransactionResponseDTO> transfer(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+            @RequestBody TransferRequestDTO dto) {
         log.info("Received POST /api/transactions/transfer - from: {}, to: {}, amount: {}",
                 dto.getSourceAccountId(), dto.getTargetAccountId(), dto.getAmount());
-        TransactionResponseDTO response = service.transfer(dto);
+        TransactionResponseDTO response = idempotency.execute(userId, idempotencyKey, "TRANSFER", dto,
+                (operationId, beforeCommit) -> service.transfer(dto, operationId, beforeCommit));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchResponseDTO> batch(@RequestBody List<BatchItemDTO> items) {
+        log.info("Received POST /api/transactions/batch - {} items", items.size());
+        return ResponseEntity.ok(service.batch(items));
+    }
+
+    @PostMapping(value = "/batch", consumes = APPLICATION_NDJSON)
+    public ResponseEntity<BatchResponseDTO> batchNdjson(InputStream body) throws IOException {
+        List<BatchItemDTO> items = new ArrayList<>();
+        try (MappingIterator<BatchItemDTO> it = objectMapper.readerFor(BatchItemDTO.class).readValues(body)) {
+            while (it.hasNextValue()) {
+                items.add(it.nextValue());
+            }
+        }
+        log.info("Received POST /api/transactions/batch (NDJSON) - {} items", items.size());
+        return ResponseEntity.ok(service.batch(items));
+    }
+
     @GetMapping("/account/{accountId}")
     public ResponseEntity<?> getByAccount(
             @PathVariable UUID accountId,
             @RequestParam(required = false, defaultValue = "0") int page,
-            @RequestParam(required = false, defaultValue = "20") int size) {
+            @RequestParam(required = false, defaultValue = "20") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor) {
+
+        log.info("Received GET /api/transactions/account/{} - page: {}, size: {}, from: {}, to: {}",
+                accountId, page, size, from, to);
 
-        log.info("Received GET /api/transactions/account/{} - page: {}, size: {}", accountId, page, size);
+        if (from != null || to != null) {
+            // Période (bornes incluses), filtrée en base, par ordre chronologique et par
+            // curseur : renvoyer nextCursor pour la page suivante (page est ignoré)
+            if (from == null || to == null || from.isAfter(to)) {
+                throw new BusinessException("Both from and to are required, with from <= to");
+            }
+            if (size <= 0 || size > MAX_PAGE_SIZE) {
+                throw new BusinessException("size must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            return ResponseEntity.ok(service.getByAccountAndPeriod(accountId, from, to, cursor, size));
+        }
 
         if (page >= 0 && size > 0) {
             // Pagination
-            Page<Transaction> transactionsPage = service.getByAccountPaginated(accountId, PageRequest.of(page, size));
+            Page<Transaction> transactionsPage = service.getByAccountPaginated(accountId,
+                    PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt", "id")));
             // Retourner le contenu au lieu de la page complète
             List<TransactionResponseDTO> content = transactionsPage.getContent().stream()
                     .map(t -> TransactionResponseDTO.fromEntity(t, "Transaction retrieved successfully"))
@@ -87,17 +175,105 @@ public class TransactionController {
         }
     }
 
+    /**
+     * GET /api/transactions/account/{accountId}/history?cursor=&size=20
+     * Historique paginé par curseur : renvoyer nextCursor pour obtenir la page suivante
+     */
+    @GetMapping("/account/{accountId}/history")
+    public ResponseEntity<TransactionPageDTO> getHistory(
+            @PathVariable UUID accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+
+        log.info("Received GET /api/transactions/account/{}/history - size: {}", accountId, size);
+
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new BusinessException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        return ResponseEntity.ok(service.getHistory(accountId, cursor, size));
+    }
+
+    /**
+     * GET /api/transactions/account/{accountId}/statement?from=&to=&format=ndjson|csv&currentBalance=
+     * Relevé exporté en flux avec solde courant ; currentBalance (solde actuel
+     * du compte) permet de calculer le solde d'ouverture de la période.
+     * Écrit directement dans la réponse, avec son propre délai (statement.export.timeout) :
+     * le délai global des réponses asynchrones (spring.mvc.async.request-timeout) reste court
+     */
+    @GetMapping("/account/{accountId}/statement")
+    public WebAsyncTask<Void> exportStatement(
+            @PathVariable UUID accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            @RequestParam(required = false) BigDecimal currentBalance,
+            HttpServletResponse response) {
+
+        log.info("Received GET /api/transactions/account/{}/statement - from: {}, to: {}, format: {}",
+                accountId, from, to, format);
+
+        if (from.isAfter(to)) {
+            throw new BusinessException("from must be before or equal to to");
+        }
+        StatementExportService.Format exportFormat = StatementExportService.parseFormat(format);
+        BigDecimal openingBalance = statementExportService.openingBalance(accountId, from, currentBalance);
+
+        response.setContentType((exportFormat == StatementExportService.Format.CSV
+                ? TEXT_CSV : MediaType.parseMediaType(APPLICATION_NDJSON)).toString());
+        response.setHeader("X-Opening-Balance", openingBalance.toPlainString());
+
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            statementExportService.export(accountId, from, to, openingBalance, exportFormat,
+                    response.getOutputStream());
+            return null;
+        });
+    }
+
+    /**
+     * GET /api/transactions/recent?accountIds=a,b&limit=20
+     * Les transactions les plus récentes, tous comptes confondus
+     */
+    @GetMapping("/recent")
+    public ResponseEntity<List<TransactionResponseDTO>> getRecent(
+            @RequestParam List<UUID> accountIds,
+            @RequestParam(required = false, defaultValue = "20") int limit) {
+
+        log.info("Received GET /api/transactions/recent - accounts: {}, limit: {}", accountIds.size(), limit);
+
+        if (limit <= 0 || limit > MAX_RECENT_LIMIT) {
+            throw new BusinessException("limit must be between 1 and " + MAX_RECENT_LIMIT);
+        }
+        if (accountIds.isEmpty() || accountIds.size() > MAX_RECENT_ACCOUNTS) {
+            throw new BusinessException("accountIds must contain between 1 and " + MAX_RECENT_ACCOUNTS + " accounts");
+        }
+
+        List<TransactionResponseDTO> transactions = service.getRecentForAccounts(accountIds, limit).stream()
+                .map(t -> TransactionResponseDTO.fromEntity(t, "Transaction retrieved successfully"))
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(transactions);
+    }
+
+    /**
+     * GET /api/transactions/search?type=&status=&accountId=&minAmount=&maxAmount=&from=&to=&page=0&size=50
+     * Recherche multi-critères paginée ; X-Has-Next indique s'il reste des résultats
+     */
     @GetMapping("/search")
     public ResponseEntity<List<TransactionResponseDTO>> search(
-            @RequestParam(required = false) Transaction.Type type,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            TransactionSearchCriteria criteria,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "50") int size) {
 
-        log.info("Received GET /api/transactions/search - type: {}, date: {}", type, date);
+        log.info("Received GET /api/transactions/search - {} - page: {}, size: {}", criteria, page, size);
 
-        List<TransactionResponseDTO> transactions = service.search(type, date).stream()
+        Slice<Transaction> results = service.search(criteria, page, size);
+        List<TransactionResponseDTO> transactions = results.getContent().stream()
                 .map(t -> TransactionResponseDTO.fromEntity(t, "Transaction retrieved successfully"))
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(transactions);
+        return ResponseEntity.ok()
+                .header("X-Has-Next", String.valueOf(results.hasNext()))
+                .body(transactions);
     }
 }
@@ -0,0 +1,34 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.dto;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public class BatchItemDTO {
+    private Transaction.Type type;
+    private UUID accountId;
+    private UUID targetAccountId; // Pour les transferts
+    private BigDecimal amount;
+
+    // Getters & Setters
+    public Transaction.Type getType() { return type; }
+    public void setType(Transaction.Type type) { this.type = type; }
+
+    public UUID getAccountId() { return accountId; }
+    public void setAccountId(UUID accountId) { this.accountId = accountId; }
+
+    public UUID getTargetAccountId() { return targetAccountId; }
+    public void setTargetAccountId(UUID targetAccountId) { this.targetAccountId = targetAccountId; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+}
@@ -0,0 +1,45 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.dto;
+
+/**
+ *
+ * @author steve
+ */
+import java.util.List;
+
+public class BatchResponseDTO {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private int pending;
+    private List<TransactionResponseDTO> results; // Un résultat par élément, dans l'ordre reçu
+
+    public BatchResponseDTO() {}
+
+    public BatchResponseDTO(List<TransactionResponseDTO> results) {
+        this.results = results;
+        this.total = results.size();
+        this.succeeded = (int) results.stream().filter(r -> "SUCCESS".equals(r.getStatus())).count();
+        this.pending = (int) results.stream().filter(r -> "PENDING".equals(r.getStatus())).count();
+        this.failed = total - succeeded - pending;
+    }
+
+    // Getters & Setters
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getSucceeded() { return succeeded; }
+    public void setSucceeded(int succeeded) { this.succeeded = succeeded; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public int getPending() { return pending; }
+    public void setPending(int pending) { this.pending = pending; }
+
+    public List<TransactionResponseDTO> getResults() { return results; }
+    public void setResults(List<TransactionResponseDTO> results) { this.results = results; }
+}
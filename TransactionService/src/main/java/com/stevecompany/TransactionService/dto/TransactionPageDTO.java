@@ -0,0 +1,35 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.dto;
+
+/**
+ *
+ * @author steve
+ */
+import java.util.List;
+
+public class TransactionPageDTO {
+    private List<TransactionResponseDTO> content;
+    private String nextCursor; // À renvoyer tel quel pour la page suivante ; null s'il n'y en a plus
+    private boolean hasNext;
+
+    public TransactionPageDTO() {}
+
+    public TransactionPageDTO(List<TransactionResponseDTO> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    // Getters & Setters
+    public List<TransactionResponseDTO> getContent() { return content; }
+    public void setContent(List<TransactionResponseDTO> content) { this.content = content; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+}
@@ -0,0 +1,63 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.dto;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.entity.Transaction;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class TransactionSearchCriteria {
+    private Transaction.Type type;
+    private Transaction.Status status;
+    private UUID accountId;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from; // Inclus
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;   // Inclus
+
+    // Getters & Setters
+    public Transaction.Type getType() { return type; }
+    public void setType(Transaction.Type type) { this.type = type; }
+
+    public Transaction.Status getStatus() { return status; }
+    public void setStatus(Transaction.Status status) { this.status = status; }
+
+    public UUID getAccountId() { return accountId; }
+    public void setAccountId(UUID accountId) { this.accountId = accountId; }
+
+    public BigDecimal getMinAmount() { return minAmount; }
+    public void setMinAmount(BigDecimal minAmount) { this.minAmount = minAmount; }
+
+    public BigDecimal getMaxAmount() { return maxAmount; }
+    public void setMaxAmount(BigDecimal maxAmount) { this.maxAmount = maxAmount; }
+
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+
+    // Ancien paramètre "date" : une seule journée
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    public void setDate(LocalDate date) {
+        this.from = date;
+        this.to = date;
+    }
+
+    @Override
+    public String toString() {
+        return "type: " + type + ", status: " + status + ", accountId: " + accountId
+                + ", amount: [" + minAmount + ", " + maxAmount + "], dates: [" + from + ", " + to + "]";
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.entity;
+
+/**
+ *
+ * @author steve
+ */
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Clé d'idempotence (en-tête Idempotency-Key, propre à l'appelant) : empreinte
+ * de la requête et réponse renvoyée, rejouée telle quelle si le client renvoie
+ * la même requête.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+       indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+
+    // SHA-256 (hex) de l'appelant (X-User-Id) et de la clé reçue
+    @Id
+    @Column(length = 100)
+    private String idempotencyKey;
+
+    // SHA-256 (hex) de l'opération et du corps de la requête
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    // TransactionResponseDTO en JSON, une fois l'opération terminée
+    @Lob
+    @Column(columnDefinition = "TEXT")
+    private String response;
+
+    private LocalDateTime createdAt;
+
+    // Purge de la réponse (ou de la clé UNKNOWN) après cette date ; IN_PROGRESS : voir IdempotencyService.purgeExpired
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * UNKNOWN : la tentative a échoué après avoir pu appeler Account Service ;
+     * la clé n'est jamais libérée, une nouvelle requête identique la reprend.
+     */
+    public enum Status {
+        IN_PROGRESS, COMPLETED, UNKNOWN
+    }
+
+    // Getters & Setters
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getResponse() { return response; }
+    public void setResponse(String response) { this.response = response; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
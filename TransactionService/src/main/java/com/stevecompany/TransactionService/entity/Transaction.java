@@ -14,7 +14,15 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+       uniqueConstraints = @UniqueConstraint(name = "uk_tx_operation_id", columnNames = "operation_id"),
+       indexes = {
+           @Index(name = "idx_tx_account_created", columnList = "account_id, created_at"),
+           @Index(name = "idx_tx_target_created", columnList = "target_account_id, created_at"),
+           @Index(name = "idx_tx_type_created", columnList = "type, created_at"),
+           @Index(name = "idx_tx_status_created", columnList = "status, created_at"),
+           @Index(name = "idx_tx_created", columnList = "created_at")
+       })
 public class Transaction {
 
     @Id
@@ -36,14 +44,24 @@ public class Transaction {
 
     private String failureReason;
 
+    // Identifiant transmis à Account Service (X-Operation-Id) : une écriture par opération.
+    // Élément de lot : <identifiant du paquet>:<rang>
+    @Column(length = 64)
+    private String operationId;
+
     private LocalDateTime createdAt;
 
     public enum Type {
         DEPOSIT, WITHDRAWAL, TRANSFER, PAYMENT
     }
 
+    /**
+     * PENDING : appel à Account Service sans réponse exploitable, le mouvement
+     * a pu être appliqué ; résolu par une nouvelle tentative de la même
+     * opération ou par PendingTransactionReconciler.
+     */
     public enum Status {
-        SUCCESS, FAILED
+        SUCCESS, FAILED, PENDING
     }
 
     @PrePersist
@@ -73,6 +91,9 @@ public class Transaction {
     public String getFailureReason() { return failureReason; }
     public void setFailureReason(String failureReason) { this.failureReason = failureReason; }
 
+    public String getOperationId() { return operationId; }
+    public void setOperationId(String operationId) { this.operationId = operationId; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.exception;
+
+/**
+ *
+ * @author steve
+ */
+
+/**
+ * Écriture envoyée à Account Service sans réponse exploitable (délai de
+ * lecture dépassé, connexion coupée, 5xx) : le mouvement a pu être appliqué.
+ */
+public class OutcomeUnknownException extends ServiceUnavailableException {
+    public OutcomeUnknownException(String message) {
+        super(message);
+    }
+}
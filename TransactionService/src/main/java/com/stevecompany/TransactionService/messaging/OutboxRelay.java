@@ -0,0 +1,126 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.messaging;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.entity.OutboxEvent;
+import com.stevecompany.TransactionService.metrics.OperationMetrics;
+import com.stevecompany.TransactionService.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Relais de l'outbox : publie les événements en attente par lots, attend
+ * les confirmations du broker (publisher confirms) puis supprime les lignes.
+ * En cas d'échec rien n'est supprimé et le lot est retenté au cycle suivant
+ * (livraison au moins une fois).
+ */
+@Component
+public class OutboxRelay {
+
+    static final String TRACEPARENT = "traceparent";
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private final OutboxEventRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final OperationMetrics metrics;
+    private final Tracer tracer;
+    private final Propagator propagator;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       RabbitTemplate rabbitTemplate,
+                       OperationMetrics metrics,
+                       Tracer tracer,
+                       Propagator propagator,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.propagator = propagator;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    @Transactional
+    public void relay() {
+        List<OutboxEvent> pending = outboxRepository.findPendingForUpdate(PageRequest.of(0, batchSize));
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Un lot entier, confirmations du broker comprises
+            metrics.record("outbox.relay", Tags.empty(), () -> rabbitTemplate.invoke(ops -> {
+                for (OutboxEvent event : pending) {
+                    send(ops, event);
+                }
+                ops.waitForConfirmsOrDie(confirmTimeoutMs);
+                return null;
+            }));
+        } catch (Exception e) {
+            log.error("Outbox relay failed for {} events, will retry: {}", pending.size(), e.getMessage());
+            return;
+        }
+
+        outboxRepository.deleteAllInBatch(pending);
+        log.info("Outbox relay published {} events", pending.size());
+    }
+
+    /**
+     * Publie sous un span enfant de la requête qui a écrit l'événement :
+     * l'observation du RabbitTemplate propage alors cette trace au consommateur.
+     * Sans contexte enregistré, le span démarre une nouvelle trace.
+     */
+    private void send(RabbitOperations ops, OutboxEvent event) {
+        Span span = propagator.extract(event, (e, key) -> TRACEPARENT.equals(key) ? e.getTraceParent() : null)
+                .name("outbox relay")
+                .kind(Span.Kind.PRODUCER)
+                .start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            ops.send(event.getExchange(), event.getRoutingKey(), toMessage(event));
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private Message toMessage(OutboxEvent event) {
+        return MessageBuilder.withBody(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setMessageId(event.getId().toString())
+                .setHeader("__TypeId__", event.getEventType())
+                .build();
+    }
+}
@@ -24,6 +24,10 @@ public class RabbitMQConfig {
     public static final String ROUTING_KEY_SUCCESS = "transaction.success";
     public static final String ROUTING_KEY_FAILED = "transaction.failed";
 
+    // ===== CONSUMER : Événements venant de Account Service =====
+    public static final String ACCOUNT_EXCHANGE = "account.exchange";
+    public static final String ACCOUNT_UPDATED_ROUTING_KEY = "account.updated";
+
     @Bean
     public TopicExchange transactionExchange() {
         return new TopicExchange(EXCHANGE);
@@ -55,6 +59,26 @@ public class RabbitMQConfig {
                 .with(ROUTING_KEY_FAILED);
     }
 
+    // Queue anonyme (exclusive, auto-delete) : chaque instance reçoit
+    // toutes les mises à jour pour invalider son propre cache
+    @Bean
+    public TopicExchange accountExchange() {
+        return new TopicExchange(ACCOUNT_EXCHANGE);
+    }
+
+    @Bean
+    public Queue accountStatusCacheQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding accountStatusCacheBinding() {
+        return BindingBuilder
+                .bind(accountStatusCacheQueue())
+                .to(accountExchange())
+                .with(ACCOUNT_UPDATED_ROUTING_KEY);
+    }
+
     @Bean
     public Jackson2JsonMessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -64,6 +88,8 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter());
+        // Span producteur + en-tête traceparent sur chaque message publié
+        template.setObservationEnabled(true);
         return template;
     }
 }
\ No newline at end of file
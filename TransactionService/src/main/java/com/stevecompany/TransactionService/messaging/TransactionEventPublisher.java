@@ -8,21 +8,49 @@ package com.stevecompany.TransactionService.messaging;
  *
  * @author steve
  */
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevecompany.TransactionService.entity.OutboxEvent;
 import com.stevecompany.TransactionService.entity.Transaction;
 import com.stevecompany.TransactionService.messaging.event.*;
+import com.stevecompany.TransactionService.metrics.OperationMetrics;
+import com.stevecompany.TransactionService.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Les événements ne sont plus envoyés directement à RabbitMQ : ils sont
+ * écrits dans la table outbox au sein de la transaction de l'appelant,
+ * puis publiés par OutboxRelay après commit.
+ */
 @Component
+@Transactional(propagation = Propagation.MANDATORY)
 public class TransactionEventPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(TransactionEventPublisher.class);
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final OperationMetrics metrics;
+    private final Tracer tracer;
+    private final Propagator propagator;
 
-    public TransactionEventPublisher(RabbitTemplate rabbitTemplate) {
-        this.rabbitTemplate = rabbitTemplate;
+    public TransactionEventPublisher(OutboxEventRepository outboxRepository, ObjectMapper objectMapper,
+                                     OperationMetrics metrics, Tracer tracer, Propagator propagator) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.propagator = propagator;
     }
 
     public void publishSuccess(Transaction tx) {
@@ -36,11 +64,7 @@ public class TransactionEventPublisher {
                 tx.getAmount()
         );
         
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfig.EXCHANGE,
-                RabbitMQConfig.ROUTING_KEY_SUCCESS,
-                event
-        );
+        enqueue(RabbitMQConfig.ROUTING_KEY_SUCCESS, event);
     }
 
     public void publishFailure(Transaction tx) {
@@ -55,10 +79,34 @@ public class TransactionEventPublisher {
                 tx.getFailureReason()
         );
         
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfig.EXCHANGE,
-                RabbitMQConfig.ROUTING_KEY_FAILED,
-                event
-        );
+        enqueue(RabbitMQConfig.ROUTING_KEY_FAILED, event);
+    }
+
+    private void enqueue(String routingKey, Object event) {
+        Tags tags = Tags.of("event", event.getClass().getSimpleName(), "channel", "outbox");
+        metrics.run("events.published", tags, () -> {
+            try {
+                OutboxEvent outboxEvent = new OutboxEvent(
+                        RabbitMQConfig.EXCHANGE,
+                        routingKey,
+                        event.getClass().getName(),
+                        objectMapper.writeValueAsString(event)
+                );
+                outboxEvent.setTraceParent(currentTraceParent());
+                outboxRepository.save(outboxEvent);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize " + event.getClass().getSimpleName(), e);
+            }
+        });
+    }
+
+    private String currentTraceParent() {
+        Span span = tracer.currentSpan();
+        if (span == null) {
+            return null;
+        }
+        Map<String, String> carrier = new HashMap<>();
+        propagator.inject(span.context(), carrier, Map::put);
+        return carrier.get(OutboxRelay.TRACEPARENT);
     }
-}
\ No newline at end of file
+}
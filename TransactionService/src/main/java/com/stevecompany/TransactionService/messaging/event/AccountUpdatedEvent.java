@@ -0,0 +1,37 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.messaging.event;
+
+/**
+ *
+ * @author steve
+ */
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Événement publié par Account Service sur account.exchange (account.updated)
+ */
+public class AccountUpdatedEvent {
+    private UUID accountId;
+    private String status;
+    private BigDecimal balance;
+    private String updateType; // FREEZE, ACTIVATE, BLOCK, CLOSE, BALANCE_UPDATE
+
+    public AccountUpdatedEvent() {}
+
+    // Getters & Setters
+    public UUID getAccountId() { return accountId; }
+    public void setAccountId(UUID accountId) { this.accountId = accountId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+
+    public String getUpdateType() { return updateType; }
+    public void setUpdateType(String updateType) { this.updateType = updateType; }
+}
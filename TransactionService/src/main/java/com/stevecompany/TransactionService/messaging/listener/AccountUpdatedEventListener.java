@@ -0,0 +1,40 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.messaging.listener;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.cache.AccountStatusCache;
+import com.stevecompany.TransactionService.messaging.event.AccountUpdatedEvent;
+import com.stevecompany.TransactionService.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AccountUpdatedEventListener {
+
+    private static final Tags TAGS = Tags.of("event", "AccountUpdatedEvent");
+    private final AccountStatusCache accountStatusCache;
+    private final OperationMetrics metrics;
+
+    public AccountUpdatedEventListener(AccountStatusCache accountStatusCache, OperationMetrics metrics) {
+        this.accountStatusCache = accountStatusCache;
+        this.metrics = metrics;
+    }
+
+    @RabbitListener(queues = "#{accountStatusCacheQueue.name}")
+    public void onAccountUpdated(AccountUpdatedEvent event) {
+        metrics.run("events.consumed", TAGS, () -> {
+            // Un mouvement de solde ne change pas le statut : inutile de vider le cache
+            if ("BALANCE_UPDATE".equals(event.getUpdateType())) {
+                return;
+            }
+            accountStatusCache.invalidate(event.getAccountId());
+        });
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.repository;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Réserve la clé de façon atomique : 1 si elle est prise par cet appel, 0 si elle existait déjà
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO idempotency_keys " +
+                   "(idempotency_key, request_hash, status, created_at, expires_at) " +
+                   "VALUES (:key, :hash, 'IN_PROGRESS', :now, :expiresAt)",
+           nativeQuery = true)
+    int tryClaim(@Param("key") String key,
+                 @Param("hash") String hash,
+                 @Param("now") LocalDateTime now,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Termine la réservation faite à claimedAt : 0 si elle n'existe plus (purgée ou reprise)
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.response = :response, r.expiresAt = :expiresAt " +
+           "WHERE r.idempotencyKey = :key AND r.createdAt = :claimedAt " +
+           "AND r.status = com.stevecompany.TransactionService.entity.IdempotencyRecord.Status.IN_PROGRESS")
+    int complete(@Param("key") String key,
+                 @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("status") IdempotencyRecord.Status status,
+                 @Param("response") String response,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Reprend une clé dont la tentative précédente a échoué (UNKNOWN), pour la même requête seulement
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = " +
+           "com.stevecompany.TransactionService.entity.IdempotencyRecord.Status.IN_PROGRESS, " +
+           "r.createdAt = :now, r.expiresAt = :expiresAt " +
+           "WHERE r.idempotencyKey = :key AND r.requestHash = :hash " +
+           "AND r.status = com.stevecompany.TransactionService.entity.IdempotencyRecord.Status.UNKNOWN")
+    int reclaim(@Param("key") String key,
+                @Param("hash") String hash,
+                @Param("now") LocalDateTime now,
+                @Param("expiresAt") LocalDateTime expiresAt);
+
+    // La réservation faite à claimedAt a échoué, peut-être après l'appel à Account Service
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = " +
+           "com.stevecompany.TransactionService.entity.IdempotencyRecord.Status.UNKNOWN, r.expiresAt = :expiresAt " +
+           "WHERE r.idempotencyKey = :key AND r.createdAt = :claimedAt " +
+           "AND r.status = com.stevecompany.TransactionService.entity.IdempotencyRecord.Status.IN_PROGRESS")
+    int markUnknown(@Param("key") String key,
+                    @Param("claimedAt") LocalDateTime claimedAt,
+                    @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Réponses et clés UNKNOWN expirées, et réservations abandonnées (instance arrêtée en pleine requête)
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE " +
+           "(r.status <> com.stevecompany.TransactionService.entity.IdempotencyRecord.Status.IN_PROGRESS " +
+           "AND r.expiresAt < :now) " +
+           "OR (r.status = com.stevecompany.TransactionService.entity.IdempotencyRecord.Status.IN_PROGRESS " +
+           "AND r.createdAt < :abandonedBefore)")
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("abandonedBefore") LocalDateTime abandonedBefore);
+}
@@ -9,15 +9,47 @@ package com.stevecompany.TransactionService.repository;
  * @author steve
  */
 import com.stevecompany.TransactionService.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
+public interface TransactionRepository extends JpaRepository<Transaction, UUID>,
+        JpaSpecificationExecutor<Transaction>, TransactionSearchRepository {
+
+    // Écriture déjà enregistrée pour une opération (index unique operation_id)
+    Optional<Transaction> findByOperationId(String operationId);
+
+    // Écritures d'un paquet de lot (operationId "<paquet>:<rang>", préfixe de l'index unique)
+    List<Transaction> findByOperationIdStartingWith(String prefix);
+
+    // Écritures PENDING à réconcilier, des plus anciennes aux plus récentes (index status, created_at)
+    List<Transaction> findByStatusAndCreatedAtBetweenOrderByCreatedAtAsc(Transaction.Status status,
+                                                                         LocalDateTime start,
+                                                                         LocalDateTime end,
+                                                                         Pageable pageable);
+
+    // Résolution d'une écriture PENDING ; 0 si une autre tentative l'a déjà résolue
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :status, t.failureReason = :failureReason " +
+           "WHERE t.id = :id AND t.status = com.stevecompany.TransactionService.entity.Transaction.Status.PENDING")
+    int resolvePending(@Param("id") UUID id,
+                       @Param("status") Transaction.Status status,
+                       @Param("failureReason") String failureReason);
 
     // Pagination
     Page<Transaction> findByAccountId(UUID accountId, Pageable pageable);
@@ -25,12 +57,70 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
     // Sans pagination
     List<Transaction> findByAccountIdOrderByCreatedAtDesc(UUID accountId);
 
-    // Recherche par type
-    List<Transaction> findByType(Transaction.Type type);
+    // N plus récentes d'un compte (parcours de l'index account_id, created_at)
+    List<Transaction> findByAccountIdOrderByCreatedAtDescIdDesc(UUID accountId, Pageable pageable);
+
+    // N plus récentes sur plusieurs comptes, en une requête (index account_id, created_at)
+    List<Transaction> findByAccountIdInOrderByCreatedAtDescIdDesc(Collection<UUID> accountIds, Pageable pageable);
+
+    // Page suivant un curseur (createdAt, id), dans l'ordre de l'index : coût indépendant de la profondeur
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId " +
+           "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageAfter(@Param("accountId") UUID accountId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") UUID id,
+                                    Pageable pageable);
+
+    // Période d'un compte, mouvements émis et reçus comme le relevé, par ordre chronologique :
+    // union des index (account_id, created_at) et (target_account_id, created_at)
+    @Query("SELECT t FROM Transaction t " +
+           "WHERE (t.accountId = :accountId OR t.targetAccountId = :accountId) " +
+           "AND t.createdAt BETWEEN :start AND :end " +
+           "ORDER BY t.createdAt ASC, t.id ASC")
+    List<Transaction> findPeriod(@Param("accountId") UUID accountId,
+                                 @Param("start") LocalDateTime start,
+                                 @Param("end") LocalDateTime end,
+                                 Pageable pageable);
+
+    // Page de la période suivant un curseur (createdAt, id) : coût indépendant de la profondeur
+    @Query("SELECT t FROM Transaction t " +
+           "WHERE (t.accountId = :accountId OR t.targetAccountId = :accountId) " +
+           "AND t.createdAt BETWEEN :start AND :end " +
+           "AND (t.createdAt > :createdAt OR (t.createdAt = :createdAt AND t.id > :id)) " +
+           "ORDER BY t.createdAt ASC, t.id ASC")
+    List<Transaction> findPeriodAfter(@Param("accountId") UUID accountId,
+                                      @Param("start") LocalDateTime start,
+                                      @Param("end") LocalDateTime end,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") UUID id,
+                                      Pageable pageable);
 
-    // Recherche par date
-    List<Transaction> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+    // Relevé : mouvements (émis et reçus) d'un compte sur une période, lus en flux.
+    // Integer.MIN_VALUE demande au driver MySQL de ne pas charger tout le résultat en mémoire
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t " +
+           "WHERE (t.accountId = :accountId OR t.targetAccountId = :accountId) " +
+           "AND t.createdAt BETWEEN :start AND :end " +
+           "ORDER BY t.createdAt ASC, t.id ASC")
+    Stream<Transaction> streamStatement(@Param("accountId") UUID accountId,
+                                        @Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end);
 
-    // Recherche par type ET date
-    List<Transaction> findByTypeAndCreatedAtBetween(Transaction.Type type, LocalDateTime start, LocalDateTime end);
+    // Somme signée des mouvements réussis d'un compte depuis une date (calcul du solde d'ouverture)
+    @Query("SELECT COALESCE(SUM(CASE " +
+           "WHEN t.type = :deposit THEN t.amount " +
+           "WHEN t.type = :transfer AND t.targetAccountId = :accountId THEN t.amount " +
+           "ELSE -t.amount END), 0) " +
+           "FROM Transaction t " +
+           "WHERE (t.accountId = :accountId OR t.targetAccountId = :accountId) " +
+           "AND t.status = :success AND t.createdAt >= :since")
+    BigDecimal sumNetMovementsSince(@Param("accountId") UUID accountId,
+                                    @Param("since") LocalDateTime since,
+                                    @Param("deposit") Transaction.Type deposit,
+                                    @Param("transfer") Transaction.Type transfer,
+                                    @Param("success") Transaction.Status success);
 }
\ No newline at end of file
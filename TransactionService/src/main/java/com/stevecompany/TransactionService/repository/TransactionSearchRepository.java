@@ -0,0 +1,20 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.repository;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.entity.Transaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface TransactionSearchRepository {
+
+    // Page de résultats sans requête COUNT (size + 1 lignes lues pour savoir s'il en reste)
+    Slice<Transaction> findSlice(Specification<Transaction> spec, Pageable pageable);
+}
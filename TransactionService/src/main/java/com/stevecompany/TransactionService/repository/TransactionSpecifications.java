@@ -0,0 +1,54 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.repository;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.entity.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Filtres combinables de la recherche de transactions ; un critère null
+ * ne filtre rien (Specification.where / and ignorent les specs null).
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> hasType(Transaction.Type type) {
+        return type == null ? null : (root, query, cb) -> cb.equal(root.get("type"), type);
+    }
+
+    public static Specification<Transaction> hasStatus(Transaction.Status status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Transaction> hasAccount(UUID accountId) {
+        return accountId == null ? null : (root, query, cb) -> cb.equal(root.get("accountId"), accountId);
+    }
+
+    public static Specification<Transaction> amountAtLeast(BigDecimal min) {
+        return min == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("amount"), min);
+    }
+
+    public static Specification<Transaction> amountAtMost(BigDecimal max) {
+        return max == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("amount"), max);
+    }
+
+    public static Specification<Transaction> createdFrom(LocalDateTime start) {
+        return start == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), start);
+    }
+
+    public static Specification<Transaction> createdBefore(LocalDateTime end) {
+        return end == null ? null : (root, query, cb) -> cb.lessThan(root.get("createdAt"), end);
+    }
+}
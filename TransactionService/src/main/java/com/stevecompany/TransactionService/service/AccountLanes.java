@@ -0,0 +1,143 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.service;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Couloirs d'exécution par compte : un tableau fixe de verrous (lock striping)
+ * indexé par le hash de l'UUID du compte. Les opérations sur un même compte
+ * sont sérialisées, celles sur des comptes différents restent parallèles
+ * (sauf collision de hash, rare avec assez de verrous).
+ *
+ * Un transfert prend ses deux verrous dans l'ordre des indices : pas d'interblocage.
+ *
+ * Les soldes restent garantis par les crédits/débits conditionnels d'Account
+ * Service ; les couloirs apportent la contre-pression : l'attente sur un
+ * compte très sollicité est bornée ici (503 après lock-timeout), sans tenir
+ * de connexion, au lieu de s'empiler sur les verrous de ligne d'Account
+ * Service. L'appelant prend le couloir, appelle Account Service, puis écrit
+ * le ledger dans une transaction courte avant de le rendre.
+ *
+ * Les verrous sont locaux à la JVM : l'ordre des écritures d'un compte n'est
+ * garanti qu'entre les requêtes d'une même instance. Avec plusieurs instances,
+ * ou pour le traitement par lots (qui ne passe pas par les couloirs), deux
+ * écritures d'un même compte peuvent être validées dans un autre ordre que
+ * les mouvements de son solde.
+ * Métriques : account.lanes.wait (attente d'un couloir), account.lanes.queue.depth
+ * (threads en attente), account.lanes.timeouts.
+ */
+@Component
+public class AccountLanes {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long lockTimeoutNanos;
+    private final Timer waitTimer;
+    private final Counter timeouts;
+
+    public AccountLanes(MeterRegistry meterRegistry,
+                        @Value("${account.lanes.stripes:1024}") int stripes,
+                        @Value("${account.lanes.lock-timeout:5s}") Duration lockTimeout) {
+        // Nombre de verrous arrondi à la puissance de 2 supérieure (index = hash & mask)
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = size - 1;
+        this.lockTimeoutNanos = lockTimeout.toNanos();
+        this.waitTimer = Timer.builder("account.lanes.wait")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("account.lanes.timeouts").register(meterRegistry);
+        Gauge.builder("account.lanes.queue.depth", this, AccountLanes::queueDepth)
+                .register(meterRegistry);
+    }
+
+    public <T> T withAccount(UUID accountId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(accountId);
+        acquire(lock);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deux comptes (transfert) : verrous pris par ordre d'indice croissant
+     */
+    public <T> T withAccounts(UUID firstId, UUID secondId, Supplier<T> action) {
+        int a = index(firstId);
+        int b = index(secondId);
+        if (a == b) {
+            return withAccount(firstId, action);
+        }
+        ReentrantLock first = stripes[Math.min(a, b)];
+        ReentrantLock second = stripes[Math.max(a, b)];
+        acquire(first);
+        try {
+            acquire(second);
+            try {
+                return action.get();
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    private void acquire(ReentrantLock lock) {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(lockTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for account lane");
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            timeouts.increment();
+            throw new ServiceUnavailableException("Account is busy, retry later");
+        }
+    }
+
+    private ReentrantLock stripeFor(UUID accountId) {
+        return stripes[index(accountId)];
+    }
+
+    private int index(UUID accountId) {
+        int h = accountId.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private double queueDepth() {
+        int waiting = 0;
+        for (ReentrantLock stripe : stripes) {
+            waiting += stripe.getQueueLength();
+        }
+        return waiting;
+    }
+}
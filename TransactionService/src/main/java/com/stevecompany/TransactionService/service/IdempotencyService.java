@@ -0,0 +1,254 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.service;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stevecompany.TransactionService.dto.TransactionResponseDTO;
+import com.stevecompany.TransactionService.entity.IdempotencyRecord;
+import com.stevecompany.TransactionService.exception.BusinessException;
+import com.stevecompany.TransactionService.exception.IdempotencyConflictException;
+import com.stevecompany.TransactionService.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Idempotence des opérations (en-tête Idempotency-Key) : une requête rejouée
+ * avec la même clé renvoie la réponse d'origine sans rappeler Account Service
+ * ni écrire dans le ledger.
+ *
+ * Les clés sont propres à l'appelant (X-User-Id, posé par le gateway après
+ * vérification du JWT) : deux utilisateurs peuvent choisir la même valeur.
+ * Chaque clé donne un identifiant d'opération stable, transmis à Account
+ * Service qui n'applique qu'une fois un même identifiant. Une tentative en
+ * échec n'est donc jamais libérée : la clé passe à UNKNOWN et une nouvelle
+ * requête identique la reprend avec le même identifiant.
+ *
+ * La table idempotency_keys fait foi (partagée entre instances) ; les réponses
+ * terminées sont aussi gardées dans un cache local, ce qui rend le rejeu
+ * quasi gratuit (aucun accès base).
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, StoredResponse> completed;
+    private final Counter replays;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+
+    private record StoredResponse(String requestHash, TransactionResponseDTO response) {
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${idempotency.ttl:24h}") Duration ttl,
+                              @Value("${idempotency.in-progress-timeout:15m}") Duration inProgressTimeout,
+                              @Value("${idempotency.cache.max-size:100000}") long cacheMaxSize) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency");
+        this.replays = Counter.builder("idempotency.replays").register(meterRegistry);
+    }
+
+    /**
+     * Exécute l'opération une seule fois par clé et par appelant (principal,
+     * null sans JWT). Sans clé, l'opération est exécutée avec un identifiant
+     * propre à la requête. Même clé avec une autre requête, ou requête
+     * d'origine encore en cours : IdempotencyConflictException (409).
+     *
+     * L'action reçoit l'identifiant d'opération à transmettre à Account Service
+     * et le rappel qui enregistre la réponse : elle l'appelle dans sa propre
+     * transaction, avant validation, pour que l'écriture du ledger et la
+     * réponse stockée soient validées ensemble.
+     */
+    public TransactionResponseDTO execute(String principal, String key, String operation, Object request,
+                                          BiFunction<String, Consumer<TransactionResponseDTO>, TransactionResponseDTO> action) {
+        if (key == null) {
+            return action.apply(UUID.randomUUID().toString(), response -> { });
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String scopedKey = sha256(principal == null ? "" : principal, key);
+        String requestHash = hash(operation, request);
+        // Même clé et même requête : même identifiant, y compris après une reprise ou une purge
+        String operationId = UUID.nameUUIDFromBytes((scopedKey + ":" + requestHash)
+                .getBytes(StandardCharsets.UTF_8)).toString();
+
+        StoredResponse cached = completed.getIfPresent(scopedKey);
+        if (cached != null) {
+            return replay(key, cached, requestHash);
+        }
+
+        // À la seconde : valeur relue à l'identique quelle que soit la précision de la colonne
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime claimExpiresAt = claimedAt.plus(inProgressTimeout);
+        Integer claimed = transactionTemplate.execute(status -> {
+            int inserted = repository.tryClaim(scopedKey, requestHash, claimedAt, claimExpiresAt);
+            return inserted > 0 ? inserted : repository.reclaim(scopedKey, requestHash, claimedAt, claimExpiresAt);
+        });
+        if (claimed == null || claimed == 0) {
+            return replayFromStore(scopedKey, key, requestHash);
+        }
+
+        AtomicBoolean stored = new AtomicBoolean();
+        TransactionResponseDTO response;
+        try {
+            // Pas de transaction ici : l'opération ouvre la sienne une fois son
+            // couloir obtenu, et y enregistre la réponse avec l'écriture du ledger
+            response = action.apply(operationId, result -> stored.set(complete(scopedKey, key, claimedAt, result)));
+        } catch (RuntimeException e) {
+            // Account Service a pu appliquer le mouvement : la clé n'est pas libérée
+            // mais passe à UNKNOWN, reprise avec le même identifiant d'opération
+            transactionTemplate.executeWithoutResult(status ->
+                    repository.markUnknown(scopedKey, claimedAt, LocalDateTime.now().plus(ttl)));
+            throw e;
+        }
+
+        if (stored.get()) {
+            completed.put(scopedKey, new StoredResponse(requestHash, response));
+        }
+        return response;
+    }
+
+    /**
+     * Enregistre la réponse dans la transaction du ledger ; false si la
+     * réservation a été purgée entre-temps (requête plus longue que
+     * in-progress-timeout). L'écriture du ledger est alors validée quand même :
+     * le mouvement est appliqué côté Account Service, et une autre tentative
+     * de la même opération retrouve cette écriture par son identifiant.
+     */
+    private boolean complete(String scopedKey, String key, LocalDateTime claimedAt, TransactionResponseDTO result) {
+        int updated = repository.complete(scopedKey, claimedAt, IdempotencyRecord.Status.COMPLETED,
+                toJson(result), LocalDateTime.now().plus(ttl));
+        if (updated == 0) {
+            log.warn("Idempotency-Key {} lost its reservation before completion, response not stored", key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Purge des réponses et clés UNKNOWN expirées, et des clés restées
+     * IN_PROGRESS après un arrêt brutal. Une réservation n'est purgée qu'après
+     * in-progress-timeout, bien au-delà de la durée maximale d'une requête.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:60000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer deleted = transactionTemplate.execute(status ->
+                repository.deleteExpired(now, now.minus(inProgressTimeout)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private TransactionResponseDTO replayFromStore(String scopedKey, String key, String requestHash) {
+        IdempotencyRecord existing = repository.findById(scopedKey)
+                .orElseThrow(() -> new IdempotencyConflictException(
+                        "Idempotency-Key " + key + " expired meanwhile, retry the request"));
+
+        if (!existing.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency-Key " + key + " was used for a different request");
+        }
+        if (existing.getStatus() != IdempotencyRecord.Status.COMPLETED) {
+            throw new IdempotencyConflictException("A request with Idempotency-Key " + key + " is still in progress");
+        }
+
+        StoredResponse stored = new StoredResponse(existing.getRequestHash(), fromJson(existing.getResponse()));
+        completed.put(scopedKey, stored);
+        return replay(key, stored, requestHash);
+    }
+
+    private TransactionResponseDTO replay(String key, StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency-Key " + key + " was used for a different request");
+        }
+        log.info("Replaying stored response for Idempotency-Key {}", key);
+        replays.increment();
+        return stored.response();
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot hash request", e);
+        }
+    }
+
+    private static String sha256(String principal, String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(principal.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash idempotency key", e);
+        }
+    }
+
+    private String toJson(TransactionResponseDTO response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize response", e);
+        }
+    }
+
+    private TransactionResponseDTO fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, TransactionResponseDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored response", e);
+        }
+    }
+}
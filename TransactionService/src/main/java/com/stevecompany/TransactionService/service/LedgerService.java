@@ -9,19 +9,58 @@ package com.stevecompany.TransactionService.service;
  * @author steve
  */
 import com.stevecompany.TransactionService.entity.Transaction;
+import com.stevecompany.TransactionService.metrics.OperationMetrics;
 import com.stevecompany.TransactionService.repository.TransactionRepository;
+import io.micrometer.core.instrument.Tags;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 @Service
 public class LedgerService {
 
+    private static final String LEDGER_WRITES = "ledger.writes";
     private final TransactionRepository repository;
+    private final OperationMetrics metrics;
 
-    public LedgerService(TransactionRepository repository) {
+    public LedgerService(TransactionRepository repository, OperationMetrics metrics) {
         this.repository = repository;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Écriture déjà enregistrée par une tentative précédente de la même opération
+     */
+    public Optional<Transaction> findByOperationId(String operationId) {
+        return operationId == null ? Optional.empty() : repository.findByOperationId(operationId);
+    }
+
+    /**
+     * Résout une écriture PENDING avec le résultat obtenu ; false si une autre
+     * tentative de la même opération l'a déjà résolue
+     */
+    public boolean resolvePending(Transaction pending, Transaction.Status status, String failureReason) {
+        boolean resolved = metrics.record(LEDGER_WRITES, Tags.of("operation", "resolvePending"),
+                () -> repository.resolvePending(pending.getId(), status, failureReason)) > 0;
+        if (resolved) {
+            pending.setStatus(status);
+            pending.setFailureReason(failureReason);
+        }
+        return resolved;
     }
 
     public Transaction record(Transaction tx) {
-        return repository.save(tx);
+        return metrics.record(LEDGER_WRITES, Tags.of("operation", "record"), () -> repository.save(tx));
+    }
+
+    /**
+     * Enregistre un lot d'écritures en une transaction ;
+     * les INSERT sont regroupés par JDBC (hibernate.jdbc.batch_size).
+     */
+    @Transactional
+    public List<Transaction> recordAll(List<Transaction> txs) {
+        return metrics.record(LEDGER_WRITES, Tags.of("operation", "recordAll"), () -> repository.saveAll(txs));
     }
 }
\ No newline at end of file
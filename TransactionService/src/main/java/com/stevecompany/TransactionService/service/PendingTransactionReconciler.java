@@ -0,0 +1,96 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.service;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.TransactionService.entity.Transaction;
+import com.stevecompany.TransactionService.exception.ServiceUnavailableException;
+import com.stevecompany.TransactionService.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Réconciliation des écritures PENDING (issue inconnue côté Account Service) :
+ * chacune est renvoyée avec son operationId, qu'Account Service n'applique
+ * qu'une fois, puis résolue en SUCCESS ou FAILED. Les éléments d'un lot sont
+ * renvoyés ensemble, avec l'identifiant de leur paquet.
+ *
+ * Seules les écritures plus anciennes que min-age sont reprises (la requête
+ * d'origine a eu le temps de se terminer), et plus récentes que max-age :
+ * au-delà de la rétention des identifiants côté Account Service
+ * (operations.retention), un renvoi pourrait appliquer deux fois le mouvement.
+ * Ces écritures restent PENDING pour un contrôle manuel.
+ */
+@Component
+public class PendingTransactionReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingTransactionReconciler.class);
+    private final TransactionRepository repository;
+    private final TransactionService transactionService;
+    private final Counter resolved;
+    private final Duration minAge;
+    private final Duration maxAge;
+    private final int batchSize;
+
+    public PendingTransactionReconciler(TransactionRepository repository,
+                                        TransactionService transactionService,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${transactions.reconcile.min-age:1m}") Duration minAge,
+                                        @Value("${transactions.reconcile.max-age:24h}") Duration maxAge,
+                                        @Value("${transactions.reconcile.batch-size:100}") int batchSize) {
+        this.repository = repository;
+        this.transactionService = transactionService;
+        this.resolved = Counter.builder("transaction.reconciled").register(meterRegistry);
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${transactions.reconcile.interval-ms:30000}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> pending = repository.findByStatusAndCreatedAtBetweenOrderByCreatedAtAsc(
+                Transaction.Status.PENDING, now.minus(maxAge), now.minus(minAge), PageRequest.of(0, batchSize));
+
+        Set<String> chunks = new HashSet<>();
+        for (Transaction tx : pending) {
+            if (tx.getOperationId() == null) {
+                continue;
+            }
+            String chunkId = TransactionService.chunkOf(tx.getOperationId());
+            try {
+                if (chunkId == null) {
+                    transactionService.reconcile(tx);
+                    resolved.increment();
+                } else if (chunks.add(chunkId)) {
+                    List<Transaction> items = repository.findByOperationIdStartingWith(
+                            chunkId + TransactionService.CHUNK_ITEM_SEPARATOR);
+                    resolved.increment(transactionService.reconcileChunk(chunkId, items));
+                }
+            } catch (ServiceUnavailableException e) {
+                // Account Service toujours indisponible : nouvel essai au prochain cycle
+                log.warn("Transaction {} still pending: {}", tx.getId(), e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                log.error("Cannot reconcile transaction {}: {}", tx.getId(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.TransactionService.service;
+
+/**
+ *
+ * @author steve
+ */
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevecompany.TransactionService.entity.Transaction;
+import com.stevecompany.TransactionService.exception.BusinessException;
+import com.stevecompany.TransactionService.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Export du relevé d'un compte en flux (NDJSON ou CSV), avec solde courant.
+ * Les lignes sont lues une à une en base et écrites directement dans la
+ * réponse : la mémoire utilisée ne dépend pas du nombre de transactions.
+ */
+@Service
+public class StatementExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementExportService.class);
+    private static final int FLUSH_EVERY = 1000;
+    private static final String CSV_HEADER =
+            "transactionId,createdAt,type,direction,amount,status,counterpartyAccountId,balance\n";
+    private final TransactionRepository repository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    public StatementExportService(TransactionRepository repository,
+                                  EntityManager entityManager,
+                                  ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Solde d'ouverture au début de la période, déduit du solde actuel
+     * et des mouvements réussis depuis (une seule requête d'agrégat).
+     * Sans solde actuel, le solde courant part de zéro.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal openingBalance(UUID accountId, LocalDate from, BigDecimal currentBalance) {
+        if (currentBalance == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal movedSince = repository.sumNetMovementsSince(accountId, from.atStartOfDay(),
+                Transaction.Type.DEPOSIT, Transaction.Type.TRANSFER, Transaction.Status.SUCCESS);
+        return currentBalance.subtract(movedSince);
+    }
+
+    @Transactional(readOnly = true)
+    public void export(UUID accountId, LocalDate from, LocalDate to, BigDecimal openingBalance,
+                       Format format, OutputStream out) throws IOException {
+        log.info("Exporting statement for account {} from {} to {} as {}", accountId, from, to, format);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator json = null;
+        if (format == Format.NDJSON) {
+            // Une ligne par objet : séparateur explicite '\n' au lieu de l'espace par défaut
+            json = objectMapper.getFactory().createGenerator(writer);
+            json.setRootValueSeparator(null);
+        } else {
+            writer.write(CSV_HEADER);
+        }
+
+        BigDecimal balance = openingBalance;
+        long rows = 0;
+        try (Stream<Transaction> stream = repository.streamStatement(
+                accountId, from.atStartOfDay(), to.atTime(LocalTime.MAX))) {
+            Iterator<Transaction> it = stream.iterator();
+            while (it.hasNext()) {
+                Transaction tx = it.next();
+                BigDecimal delta = signedAmount(tx, accountId);
+                if (tx.getStatus() == Transaction.Status.SUCCESS) {
+                    balance = balance.add(delta);
+                }
+
+                if (json != null) {
+                    writeJson(json, tx, accountId, delta, balance);
+                } else {
+                    writeCsv(writer, tx, accountId, delta, balance);
+                }
+
+                // Ne pas garder les entités déjà écrites dans le contexte de persistance
+                entityManager.detach(tx);
+                if (++rows % FLUSH_EVERY == 0) {
+                    if (json != null) {
+                        json.flush();
+                    }
+                    writer.flush();
+                }
+            }
+        }
+
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        log.info("Statement exported for account {}: {} rows", accountId, rows);
+    }
+
+    public static Format parseFormat(String format) {
+        try {
+            return Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Unsupported statement format: " + format);
+        }
+    }
+
+    /**
+     * Montant signé du point de vue du compte : crédit positif, débit négatif
+     */
+    private BigDecimal signedAmount(Transaction tx, UUID accountId) {
+        boolean credit = tx.getType() == Transaction.Type.DEPOSIT
+                || (tx.getType() == Transaction.Type.TRANSFER && accountId.equals(tx.getTargetAccountId()));
+        return credit ? tx.getAmount() : tx.getAmount().negate();
+    }
+
+    private UUID counterparty(Transaction tx, UUID accountId) {
+        if (tx.getType() != Transaction.Type.TRANSFER) {
+            return null;
+        }
+        return accountId.equals(tx.getTargetAccountId()) ? tx.getAccountId() : tx.getTargetAccountId();
+    }
+
+    private void writeJson(JsonGenerator json, Transaction tx, UUID accountId,
+                           BigDecimal delta, BigDecimal balance) throws IOException {
+        UUID counterparty = counterparty(tx, accountId);
+        json.writeStartObject();
+        json.writeStringField("transactionId", tx.getId().toString());
+        json.writeStringField("createdAt", tx.getCreatedAt().toString());
+        json.writeStringField("type", tx.getType().name());
+        json.writeStringField("direction", delta.signum() >= 0 ? "CREDIT" : "DEBIT");
+        json.writeNumberField("amount", tx.getAmount());
+        json.writeStringField("status", tx.getStatus().name());
+        json.writeStringField("counterpartyAccountId", counterparty != null ? counterparty.toString() : null);
+        json.writeNumberField("balance", balance);
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeCsv(Writer writer, Transaction tx, UUID accountId,
+                          BigDecimal delta, BigDecimal balance) throws IOException {
+        UUID counterparty = counterparty(tx, accountId);
+        writer.write(tx.getId().toString());
+        writer.write(',');
+        writer.write(tx.getCreatedAt().toString());
+        writer.write(',');
+        writer.write(tx.getType().name());
+        writer.write(',');
+        writer.write(delta.signum() >= 0 ? "CREDIT" : "DEBIT");
+        writer.write(',');
+        writer.write(tx.getAmount().toPlainString());
+        writer.write(',');
+        writer.write(tx.getStatus().name());
+        writer.write(',');
+        writer.write(counterparty != null ? counterparty.toString() : "");
+        writer.write(',');
+        writer.write(balance.toPlainString());
+        writer.write('\n');
+    }
+}
@@ -8,147 +8,591 @@ package com.stevecompany.TransactionService.service;
  *
  * @author steve
  */
+import com.stevecompany.TransactionService.cache.AccountStatusCache;
 import com.stevecompany.TransactionService.client.AccountServiceClient;
 import com.stevecompany.TransactionService.dto.*;
 import com.stevecompany.TransactionService.entity.Transaction;
 import com.stevecompany.TransactionService.exception.BusinessException;
+import com.stevecompany.TransactionService.exception.OutcomeUnknownException;
+import com.stevecompany.TransactionService.exception.ServiceUnavailableException;
 import com.stevecompany.TransactionService.messaging.TransactionEventPublisher;
+import com.stevecompany.TransactionService.metrics.OperationMetrics;
 import com.stevecompany.TransactionService.repository.TransactionRepository;
+import com.stevecompany.TransactionService.repository.TransactionSpecifications;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
 public class TransactionService {
 
     private static final Logger log = LoggerFactory.getLogger(TransactionService.class);
+    private static final int BATCH_CHUNK_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 100_000;
+    private static final int MAX_SEARCH_PAGE_SIZE = 200;
+    private static final int MAX_SEARCH_RESULTS = 10_000;
+    private static final String OPERATIONS = "transaction.operations";
+    // operationId d'un élément de lot : <identifiant du paquet>:<rang dans le paquet>
+    static final char CHUNK_ITEM_SEPARATOR = ':';
+    private static final Consumer<TransactionResponseDTO> NO_OP = response -> { };
     private final LedgerService ledger;
     private final AccountServiceClient accountClient;
     private final TransactionEventPublisher publisher;
     private final TransactionRepository repository;
+    private final AccountStatusCache accountStatusCache;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountLanes lanes;
+    private final OperationMetrics metrics;
 
     public TransactionService(
             LedgerService ledger,
             AccountServiceClient accountClient,
             TransactionEventPublisher publisher,
-            TransactionRepository repository
+            TransactionRepository repository,
+            AccountStatusCache accountStatusCache,
+            TransactionTemplate transactionTemplate,
+            AccountLanes lanes,
+            OperationMetrics metrics
     ) {
         this.ledger = ledger;
         this.accountClient = accountClient;
         this.publisher = publisher;
         this.repository = repository;
+        this.accountStatusCache = accountStatusCache;
+        this.transactionTemplate = transactionTemplate;
+        this.lanes = lanes;
+        this.metrics = metrics;
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TransactionResponseDTO deposit(TransactionRequestDTO dto) {
-        log.info("Processing DEPOSIT - accountId: {}, amount: {}", dto.getAccountId(), dto.getAmount());
-        
-        // Validation
-        validateAmount(dto.getAmount());
-        validateAccountExists(dto.getAccountId());
+        return deposit(dto, newOperationId(), NO_OP);
+    }
+
+    /**
+     * operationId est transmis à Account Service, qui n'applique qu'une fois
+     * un même identifiant, et enregistré avec l'écriture du ledger.
+     * beforeCommit est appelé dans la transaction du ledger, avant sa validation
+     * (enregistrement de la réponse idempotente avec l'écriture).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionResponseDTO deposit(TransactionRequestDTO dto, String operationId,
+                                          Consumer<TransactionResponseDTO> beforeCommit) {
+        return metrics.record(OPERATIONS, Tags.of("operation", "deposit"), () -> {
+            log.info("Processing DEPOSIT - accountId: {}, amount: {}", dto.getAccountId(), dto.getAmount());
+
+            // Validation
+            validateAmount(dto.getAmount());
+            validateAccountExists(dto.getAccountId());
+
+            return lanes.withAccount(dto.getAccountId(), () -> applyDeposit(dto, operationId, beforeCommit));
+        }, TransactionService::outcome);
+    }
+
+    /**
+     * Écriture du ledger et de l'événement outbox dans une transaction courte,
+     * ouverte après l'appel à Account Service : ni l'attente du couloir ni
+     * l'appel distant (et ses reprises) n'occupent une connexion.
+     * Une opération déjà enregistrée par une tentative précédente (même
+     * operationId) n'est pas écrite une seconde fois : son écriture est renvoyée,
+     * après résolution si elle était PENDING.
+     */
+    private TransactionResponseDTO inTransaction(Transaction tx, String successMessage, String failureMessage,
+                                                 Consumer<TransactionResponseDTO> beforeCommit) {
+        return transactionTemplate.execute(status -> {
+            Transaction saved = ledger.findByOperationId(tx.getOperationId()).orElse(null);
+            if (saved == null) {
+                saved = ledger.record(tx);
+                publish(saved);
+            } else if (saved.getStatus() == Transaction.Status.PENDING
+                    && ledger.resolvePending(saved, tx.getStatus(), tx.getFailureReason())) {
+                publish(saved);
+            }
+            TransactionResponseDTO response = TransactionResponseDTO.fromEntity(saved,
+                    saved.getStatus() == Transaction.Status.SUCCESS ? successMessage : failureMessage);
+            beforeCommit.accept(response);
+            return response;
+        });
+    }
+
+    private void publish(Transaction saved) {
+        if (saved.getStatus() == Transaction.Status.SUCCESS) {
+            publisher.publishSuccess(saved);
+        } else {
+            publisher.publishFailure(saved);
+        }
+    }
+
+    /**
+     * Issue inconnue (délai dépassé, 5xx) : Account Service a pu appliquer le
+     * mouvement. L'écriture est enregistrée PENDING, sans événement, puis
+     * résolue par une nouvelle tentative de la même opération (même
+     * Idempotency-Key) ou par PendingTransactionReconciler. L'exception est
+     * propagée (503) : aucune réponse idempotente n'est enregistrée.
+     */
+    private OutcomeUnknownException pending(Transaction tx, OutcomeUnknownException cause) {
+        tx.setStatus(Transaction.Status.PENDING);
+        tx.setFailureReason(cause.getMessage());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (ledger.findByOperationId(tx.getOperationId()).isEmpty()) {
+                ledger.record(tx);
+            }
+        });
+        return new OutcomeUnknownException("Transaction " + tx.getOperationId()
+                + " is pending (" + cause.getMessage() + "), it will be completed automatically");
+    }
 
+    /**
+     * Opération déjà résolue (réconciliation, tentative précédente) : elle n'est
+     * pas renvoyée à Account Service, qui ne garde pas trace de ses refus et
+     * pourrait appliquer après coup un mouvement enregistré FAILED.
+     */
+    private Transaction resolvedEarlier(String operationId) {
+        return ledger.findByOperationId(operationId)
+                .filter(saved -> saved.getStatus() != Transaction.Status.PENDING)
+                .orElse(null);
+    }
+
+    private TransactionResponseDTO applyDeposit(TransactionRequestDTO dto, String operationId,
+                                                Consumer<TransactionResponseDTO> beforeCommit) {
         Transaction tx = new Transaction();
         tx.setAccountId(dto.getAccountId());
         tx.setAmount(dto.getAmount());
         tx.setType(Transaction.Type.DEPOSIT);
+        tx.setOperationId(operationId);
+
+        Transaction resolved = resolvedEarlier(operationId);
+        if (resolved != null) {
+            return inTransaction(resolved, "Deposit completed successfully", "Deposit failed", beforeCommit);
+        }
 
         try {
-            accountClient.credit(dto.getAccountId(), dto.getAmount());
+            accountClient.credit(dto.getAccountId(), dto.getAmount(), operationId);
             tx.setStatus(Transaction.Status.SUCCESS);
-            Transaction saved = ledger.record(tx);
-            publisher.publishSuccess(saved);
-            log.info("DEPOSIT successful - transactionId: {}", saved.getId());
-            return TransactionResponseDTO.fromEntity(saved, "Deposit completed successfully");
-        } catch (Exception e) {
+        } catch (OutcomeUnknownException e) {
+            log.error("DEPOSIT outcome unknown - accountId: {}, error: {}", dto.getAccountId(), e.getMessage());
+            throw pending(tx, e);
+        } catch (BusinessException e) {
+            // Refus d'Account Service (4xx) : aucun mouvement appliqué
             log.error("DEPOSIT failed - accountId: {}, error: {}", dto.getAccountId(), e.getMessage());
             tx.setStatus(Transaction.Status.FAILED);
             tx.setFailureReason(e.getMessage());
-            Transaction saved = ledger.record(tx);
-            publisher.publishFailure(saved);
-            return TransactionResponseDTO.fromEntity(saved, "Deposit failed");
+            return inTransaction(tx, "Deposit completed successfully", "Deposit failed", beforeCommit);
         }
+
+        TransactionResponseDTO response = inTransaction(tx, "Deposit completed successfully", "Deposit failed",
+                beforeCommit);
+        log.info("DEPOSIT successful - transactionId: {}", response.getTransactionId());
+        return response;
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TransactionResponseDTO withdraw(TransactionRequestDTO dto) {
-        log.info("Processing WITHDRAWAL - accountId: {}, amount: {}", dto.getAccountId(), dto.getAmount());
-        
-        // Validation
-        validateAmount(dto.getAmount());
-        validateAccountExists(dto.getAccountId());
+        return withdraw(dto, newOperationId(), NO_OP);
+    }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionResponseDTO withdraw(TransactionRequestDTO dto, String operationId,
+                                           Consumer<TransactionResponseDTO> beforeCommit) {
+        return metrics.record(OPERATIONS, Tags.of("operation", "withdraw"), () -> {
+            log.info("Processing WITHDRAWAL - accountId: {}, amount: {}", dto.getAccountId(), dto.getAmount());
+
+            // Validation
+            validateAmount(dto.getAmount());
+            validateAccountExists(dto.getAccountId());
+
+            return lanes.withAccount(dto.getAccountId(), () -> applyWithdrawal(dto, operationId, beforeCommit));
+        }, TransactionService::outcome);
+    }
+
+    private TransactionResponseDTO applyWithdrawal(TransactionRequestDTO dto, String operationId,
+                                                   Consumer<TransactionResponseDTO> beforeCommit) {
         Transaction tx = new Transaction();
         tx.setAccountId(dto.getAccountId());
         tx.setAmount(dto.getAmount());
         tx.setType(Transaction.Type.WITHDRAWAL);
+        tx.setOperationId(operationId);
+
+        Transaction resolved = resolvedEarlier(operationId);
+        if (resolved != null) {
+            return inTransaction(resolved, "Withdrawal completed successfully",
+                    "Withdrawal failed: " + resolved.getFailureReason(), beforeCommit);
+        }
 
         try {
-            accountClient.debit(dto.getAccountId(), dto.getAmount());
+            accountClient.debit(dto.getAccountId(), dto.getAmount(), operationId);
             tx.setStatus(Transaction.Status.SUCCESS);
-            Transaction saved = ledger.record(tx);
-            publisher.publishSuccess(saved);
-            log.info("WITHDRAWAL successful - transactionId: {}", saved.getId());
-            return TransactionResponseDTO.fromEntity(saved, "Withdrawal completed successfully");
-        } catch (Exception e) {
+        } catch (OutcomeUnknownException e) {
+            log.error("WITHDRAWAL outcome unknown - accountId: {}, error: {}", dto.getAccountId(), e.getMessage());
+            throw pending(tx, e);
+        } catch (BusinessException e) {
+            // Refus d'Account Service (4xx, provision insuffisante par exemple) : aucun mouvement appliqué
             log.error("WITHDRAWAL failed - accountId: {}, error: {}", dto.getAccountId(), e.getMessage());
             tx.setStatus(Transaction.Status.FAILED);
             tx.setFailureReason(e.getMessage());
-            Transaction saved = ledger.record(tx);
-            publisher.publishFailure(saved);
-            return TransactionResponseDTO.fromEntity(saved, "Withdrawal failed: " + e.getMessage());
+            return inTransaction(tx, "Withdrawal completed successfully", "Withdrawal failed: " + e.getMessage(),
+                    beforeCommit);
         }
+
+        TransactionResponseDTO response = inTransaction(tx, "Withdrawal completed successfully",
+                "Withdrawal failed", beforeCommit);
+        log.info("WITHDRAWAL successful - transactionId: {}", response.getTransactionId());
+        return response;
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TransactionResponseDTO transfer(TransferRequestDTO dto) {
-        log.info("Processing TRANSFER - from: {}, to: {}, amount: {}", 
-                dto.getSourceAccountId(), dto.getTargetAccountId(), dto.getAmount());
-        
-        // Validation
-        validateAmount(dto.getAmount());
-        validateAccountExists(dto.getSourceAccountId());
-        validateAccountExists(dto.getTargetAccountId());
-        
-        if (dto.getSourceAccountId().equals(dto.getTargetAccountId())) {
-            throw new BusinessException("Cannot transfer to the same account");
-        }
+        return transfer(dto, newOperationId(), NO_OP);
+    }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionResponseDTO transfer(TransferRequestDTO dto, String operationId,
+                                           Consumer<TransactionResponseDTO> beforeCommit) {
+        return metrics.record(OPERATIONS, Tags.of("operation", "transfer"), () -> {
+            log.info("Processing TRANSFER - from: {}, to: {}, amount: {}", 
+                    dto.getSourceAccountId(), dto.getTargetAccountId(), dto.getAmount());
+
+            // Validation (existence et statut des comptes vérifiés par Account Service)
+            validateAmount(dto.getAmount());
+            if (dto.getSourceAccountId() == null || dto.getTargetAccountId() == null) {
+                throw new BusinessException("Source and target accounts are required");
+            }
+
+            if (dto.getSourceAccountId().equals(dto.getTargetAccountId())) {
+                throw new BusinessException("Cannot transfer to the same account");
+            }
+
+            return lanes.withAccounts(dto.getSourceAccountId(), dto.getTargetAccountId(),
+                    () -> applyTransfer(dto, operationId, beforeCommit));
+        }, TransactionService::outcome);
+    }
+
+    private TransactionResponseDTO applyTransfer(TransferRequestDTO dto, String operationId,
+                                                 Consumer<TransactionResponseDTO> beforeCommit) {
         Transaction tx = new Transaction();
         tx.setAccountId(dto.getSourceAccountId());
         tx.setTargetAccountId(dto.getTargetAccountId());
         tx.setAmount(dto.getAmount());
         tx.setType(Transaction.Type.TRANSFER);
+        tx.setOperationId(operationId);
+
+        Transaction resolved = resolvedEarlier(operationId);
+        if (resolved != null) {
+            return inTransaction(resolved, "Transfer completed successfully",
+                    "Transfer failed: " + resolved.getFailureReason(), beforeCommit);
+        }
 
         try {
-            // Débiter source
-            accountClient.debit(dto.getSourceAccountId(), dto.getAmount());
-            
-            // Créditer destination
-            accountClient.credit(dto.getTargetAccountId(), dto.getAmount());
-            
+            // Débit source + crédit destination en une seule transaction côté Account Service
+            accountClient.transfer(dto.getSourceAccountId(), dto.getTargetAccountId(), dto.getAmount(), operationId);
             tx.setStatus(Transaction.Status.SUCCESS);
-            Transaction saved = ledger.record(tx);
-            publisher.publishSuccess(saved);
-            log.info("TRANSFER successful - transactionId: {}", saved.getId());
-            return TransactionResponseDTO.fromEntity(saved, "Transfer completed successfully");
-        } catch (Exception e) {
+        } catch (OutcomeUnknownException e) {
+            log.error("TRANSFER outcome unknown - from: {}, to: {}, error: {}",
+                    dto.getSourceAccountId(), dto.getTargetAccountId(), e.getMessage());
+            throw pending(tx, e);
+        } catch (BusinessException e) {
             log.error("TRANSFER failed - from: {}, to: {}, error: {}", 
                     dto.getSourceAccountId(), dto.getTargetAccountId(), e.getMessage());
             
-            // Rollback automatique grâce à @Transactional
+            // Refus d'Account Service (4xx) : aucun mouvement appliqué, la transaction y a été annulée
             tx.setStatus(Transaction.Status.FAILED);
             tx.setFailureReason(e.getMessage());
-            Transaction saved = ledger.record(tx);
-            publisher.publishFailure(saved);
-            return TransactionResponseDTO.fromEntity(saved, "Transfer failed: " + e.getMessage());
+            return inTransaction(tx, "Transfer completed successfully", "Transfer failed: " + e.getMessage(),
+                    beforeCommit);
+        }
+
+        TransactionResponseDTO response = inTransaction(tx, "Transfer completed successfully",
+                "Transfer failed", beforeCommit);
+        log.info("TRANSFER successful - transactionId: {}", response.getTransactionId());
+        return response;
+    }
+
+    /**
+     * Nouvelle tentative d'une écriture PENDING avec son operationId : Account
+     * Service renvoie le résultat d'un mouvement déjà appliqué, ou l'applique
+     * s'il ne l'avait pas reçu. L'écriture passe à SUCCESS ou FAILED ; elle
+     * reste PENDING tant qu'Account Service ne répond pas (ServiceUnavailableException).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionResponseDTO reconcile(Transaction pending) {
+        log.info("Reconciling {} {} - operationId: {}", pending.getType(), pending.getId(), pending.getOperationId());
+        String operationId = pending.getOperationId();
+        switch (pending.getType()) {
+            case DEPOSIT -> {
+                TransactionRequestDTO dto = new TransactionRequestDTO();
+                dto.setAccountId(pending.getAccountId());
+                dto.setAmount(pending.getAmount());
+                return lanes.withAccount(dto.getAccountId(), () -> applyDeposit(dto, operationId, NO_OP));
+            }
+            case WITHDRAWAL -> {
+                TransactionRequestDTO dto = new TransactionRequestDTO();
+                dto.setAccountId(pending.getAccountId());
+                dto.setAmount(pending.getAmount());
+                return lanes.withAccount(dto.getAccountId(), () -> applyWithdrawal(dto, operationId, NO_OP));
+            }
+            case TRANSFER -> {
+                TransferRequestDTO dto = new TransferRequestDTO();
+                dto.setSourceAccountId(pending.getAccountId());
+                dto.setTargetAccountId(pending.getTargetAccountId());
+                dto.setAmount(pending.getAmount());
+                return lanes.withAccounts(dto.getSourceAccountId(), dto.getTargetAccountId(),
+                        () -> applyTransfer(dto, operationId, NO_OP));
+            }
+            default -> throw new BusinessException("Cannot reconcile transaction type " + pending.getType());
+        }
+    }
+
+    /**
+     * Traite un lot d'opérations (dépôts, retraits, transferts) par paquets :
+     * un seul appel Account Service par paquet (soldes nets appliqués une fois
+     * par compte) puis un INSERT groupé des écritures via le ledger.
+     * Chaque paquet est validé dans sa propre transaction (TransactionTemplate).
+     *
+     * Chaque paquet a son identifiant d'opération : Account Service ne
+     * l'applique qu'une fois. Sans réponse exploitable, ses éléments sont
+     * enregistrés PENDING puis résolus par PendingTransactionReconciler.
+     *
+     * Les lots ne passent pas par les couloirs (AccountLanes) : Account Service
+     * verrouille tous les comptes d'un paquet (SELECT ... FOR UPDATE) dans une
+     * seule transaction, ce qui ordonne déjà ses mouvements avec les opérations
+     * unitaires. Prendre jusqu'à 500 couloirs par paquet bloquerait, pendant
+     * tout l'appel, les opérations unitaires de comptes sans rapport partageant
+     * ces couloirs.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResponseDTO batch(List<BatchItemDTO> items) {
+        return metrics.record(OPERATIONS, Tags.of("operation", "batch"), () -> {
+            log.info("Processing BATCH - {} items", items.size());
+
+            if (items.size() > MAX_BATCH_SIZE) {
+                throw new BusinessException("Batch too large: " + items.size() + " items (max " + MAX_BATCH_SIZE + ")");
+            }
+
+            List<TransactionResponseDTO> results = new ArrayList<>(items.size());
+            for (int from = 0; from < items.size(); from += BATCH_CHUNK_SIZE) {
+                List<BatchItemDTO> chunk = items.subList(from, Math.min(from + BATCH_CHUNK_SIZE, items.size()));
+                results.addAll(processChunk(chunk));
+            }
+
+            BatchResponseDTO response = new BatchResponseDTO(results);
+            log.info("BATCH done - total: {}, succeeded: {}, failed: {}",
+                    response.getTotal(), response.getSucceeded(), response.getFailed());
+            return response;
+        });
+    }
+
+    private List<TransactionResponseDTO> processChunk(List<BatchItemDTO> chunk) {
+        TransactionResponseDTO[] results = new TransactionResponseDTO[chunk.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Transaction> txs = new ArrayList<>();
+        List<Map<String, Object>> movements = new ArrayList<>();
+        String chunkId = newOperationId();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            BatchItemDTO item = chunk.get(i);
+            String rejection = checkBatchItem(item);
+            if (rejection != null) {
+                results[i] = rejected(item, rejection);
+                continue;
+            }
+
+            Transaction tx = new Transaction();
+            tx.setAccountId(item.getAccountId());
+            tx.setTargetAccountId(item.getType() == Transaction.Type.TRANSFER ? item.getTargetAccountId() : null);
+            tx.setAmount(item.getAmount());
+            tx.setType(item.getType());
+            tx.setOperationId(chunkId + CHUNK_ITEM_SEPARATOR + txs.size());
+
+            positions.add(i);
+            txs.add(tx);
+            movements.add(movement(tx));
+        }
+
+        if (!movements.isEmpty()) {
+            try {
+                List<AccountServiceClient.MovementResult> applied = accountClient.applyMovements(movements, chunkId);
+                for (int k = 0; k < txs.size(); k++) {
+                    AccountServiceClient.MovementResult result = applied.get(k);
+                    txs.get(k).setStatus(result.isApplied() ? Transaction.Status.SUCCESS : Transaction.Status.FAILED);
+                    txs.get(k).setFailureReason(result.getReason());
+                }
+            } catch (RuntimeException e) {
+                // Paquet refusé (4xx) ou jamais envoyé : aucun mouvement appliqué.
+                // Sinon (délai dépassé, 5xx, réponse illisible) il a pu l'être
+                Transaction.Status status = notApplied(e) ? Transaction.Status.FAILED : Transaction.Status.PENDING;
+                log.error("BATCH chunk {} {} - {} movements, error: {}", chunkId,
+                        status == Transaction.Status.FAILED ? "failed" : "outcome unknown",
+                        movements.size(), e.getMessage());
+                for (Transaction tx : txs) {
+                    tx.setStatus(status);
+                    tx.setFailureReason(e.getMessage());
+                }
+            }
+
+            // Écritures du ledger et événements outbox dans la même transaction ;
+            // pas d'événement pour une écriture PENDING, publié à sa résolution
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Transaction> saved = ledger.recordAll(txs);
+                for (int k = 0; k < saved.size(); k++) {
+                    Transaction tx = saved.get(k);
+                    if (tx.getStatus() == Transaction.Status.SUCCESS) {
+                        publisher.publishSuccess(tx);
+                        results[positions.get(k)] = TransactionResponseDTO.fromEntity(tx, "Transaction completed successfully");
+                    } else if (tx.getStatus() == Transaction.Status.PENDING) {
+                        results[positions.get(k)] = TransactionResponseDTO.fromEntity(tx,
+                                "Transaction pending, it will be completed automatically");
+                    } else {
+                        publisher.publishFailure(tx);
+                        results[positions.get(k)] = TransactionResponseDTO.fromEntity(tx, "Transaction failed: " + tx.getFailureReason());
+                    }
+                }
+            });
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Renvoie un paquet dont les éléments sont PENDING, avec son identifiant :
+     * Account Service renvoie les résultats de la première application, ou
+     * applique le paquet s'il ne l'avait pas reçu. Retourne le nombre
+     * d'écritures résolues ; ServiceUnavailableException si Account Service
+     * ne répond toujours pas (les écritures restent PENDING).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reconcileChunk(String chunkId, List<Transaction> items) {
+        List<Transaction> pending = items.stream()
+                .filter(tx -> tx.getStatus() == Transaction.Status.PENDING)
+                .sorted(Comparator.comparingInt(tx -> chunkIndex(tx.getOperationId())))
+                .toList();
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        log.info("Reconciling BATCH chunk {} - {} movements", chunkId, pending.size());
+
+        List<Transaction.Status> statuses = new ArrayList<>(pending.size());
+        List<String> reasons = new ArrayList<>(pending.size());
+        try {
+            List<AccountServiceClient.MovementResult> applied = accountClient.applyMovements(
+                    pending.stream().map(TransactionService::movement).toList(), chunkId);
+            for (AccountServiceClient.MovementResult result : applied) {
+                statuses.add(result.isApplied() ? Transaction.Status.SUCCESS : Transaction.Status.FAILED);
+                reasons.add(result.getReason());
+            }
+        } catch (BusinessException e) {
+            // Paquet refusé (4xx) : aucun mouvement appliqué
+            for (int k = 0; k < pending.size(); k++) {
+                statuses.add(Transaction.Status.FAILED);
+                reasons.add(e.getMessage());
+            }
+        }
+
+        Integer resolved = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (int k = 0; k < pending.size(); k++) {
+                Transaction tx = pending.get(k);
+                if (ledger.resolvePending(tx, statuses.get(k), reasons.get(k))) {
+                    publish(tx);
+                    count++;
+                }
+            }
+            return count;
+        });
+        return resolved == null ? 0 : resolved;
+    }
+
+    /**
+     * Identifiant du paquet d'un élément de lot, null pour une opération unitaire
+     */
+    static String chunkOf(String operationId) {
+        int separator = operationId == null ? -1 : operationId.lastIndexOf(CHUNK_ITEM_SEPARATOR);
+        return separator < 0 ? null : operationId.substring(0, separator);
+    }
+
+    private static int chunkIndex(String operationId) {
+        return Integer.parseInt(operationId.substring(operationId.lastIndexOf(CHUNK_ITEM_SEPARATOR) + 1));
+    }
+
+    // Mouvement envoyé à Account Service pour un élément de lot
+    private static Map<String, Object> movement(Transaction tx) {
+        Map<String, Object> movement = new HashMap<>();
+        movement.put("amount", tx.getAmount());
+        if (tx.getType() == Transaction.Type.DEPOSIT) {
+            movement.put("creditAccountId", tx.getAccountId());
+        } else {
+            movement.put("debitAccountId", tx.getAccountId());
+            if (tx.getType() == Transaction.Type.TRANSFER) {
+                movement.put("creditAccountId", tx.getTargetAccountId());
+            }
+        }
+        return movement;
+    }
+
+    // Refus d'Account Service (4xx) ou requête jamais envoyée (circuit ouvert, bulkhead plein, connexion refusée)
+    private static boolean notApplied(RuntimeException e) {
+        return e instanceof BusinessException
+                || (e instanceof ServiceUnavailableException && !(e instanceof OutcomeUnknownException));
+    }
+
+    private String checkBatchItem(BatchItemDTO item) {
+        if (item.getType() == null) {
+            return "Transaction type is required";
+        }
+        if (item.getType() == Transaction.Type.PAYMENT) {
+            return "Unsupported transaction type in batch: " + item.getType();
+        }
+        if (item.getAmount() == null || item.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be greater than zero";
+        }
+        if (item.getAccountId() == null) {
+            return "Account is required";
+        }
+        if (item.getType() == Transaction.Type.TRANSFER) {
+            if (item.getTargetAccountId() == null) {
+                return "Target account is required";
+            }
+            if (item.getAccountId().equals(item.getTargetAccountId())) {
+                return "Cannot transfer to the same account";
+            }
         }
+        return null;
+    }
+
+    private TransactionResponseDTO rejected(BatchItemDTO item, String reason) {
+        TransactionResponseDTO dto = new TransactionResponseDTO();
+        dto.setAccountId(item.getAccountId());
+        dto.setTargetAccountId(item.getTargetAccountId());
+        dto.setType(item.getType() != null ? item.getType().name() : null);
+        dto.setAmount(item.getAmount());
+        dto.setStatus("REJECTED");
+        dto.setMessage("Transaction rejected");
+        dto.setFailureReason(reason);
+        return dto;
     }
 
     public List<Transaction> getByAccount(UUID accountId) {
@@ -156,27 +600,121 @@ public class TransactionService {
         return repository.findByAccountIdOrderByCreatedAtDesc(accountId);
     }
 
+    /**
+     * Les N transactions les plus récentes sur plusieurs comptes, en une seule
+     * requête (accountId IN ... ORDER BY createdAt DESC, id DESC LIMIT N) :
+     * l'ordre et la limite sont appliqués par la base.
+     */
+    @Transactional(readOnly = true)
+    public List<Transaction> getRecentForAccounts(List<UUID> accountIds, int limit) {
+        log.info("Getting {} most recent transactions for {} accounts", limit, accountIds.size());
+        return repository.findByAccountIdInOrderByCreatedAtDescIdDesc(
+                new LinkedHashSet<>(accountIds), PageRequest.of(0, limit));
+    }
+
+    /**
+     * Transactions d'un compte sur une période (bornes incluses), émises et reçues
+     * comme dans le relevé, par ordre chronologique et par curseur (keyset sur
+     * createdAt, id). Une ligne de plus est lue pour savoir s'il reste une page.
+     */
+    @Transactional(readOnly = true)
+    public TransactionPageDTO getByAccountAndPeriod(UUID accountId, LocalDate from, LocalDate to,
+                                                    String cursor, int size) {
+        log.info("Getting transactions for account: {} from {} to {} - size: {}, cursor: {}",
+                accountId, from, to, size, cursor);
+
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atTime(LocalTime.MAX);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Transaction> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = repository.findPeriod(accountId, start, end, limit);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            rows = repository.findPeriodAfter(accountId, start, end, position.getCreatedAt(), position.getId(), limit);
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<Transaction> page = hasNext ? rows.subList(0, size) : rows;
+        List<TransactionResponseDTO> content = page.stream()
+                .map(t -> TransactionResponseDTO.fromEntity(t, "Transaction retrieved successfully"))
+                .toList();
+
+        return new TransactionPageDTO(content, hasNext ? TransactionCursor.encode(page.get(size - 1)) : null);
+    }
+
+    /**
+     * Historique d'un compte par curseur (keyset sur createdAt, id), du plus récent
+     * au plus ancien. Une ligne de plus est lue pour savoir s'il reste une page.
+     */
+    @Transactional(readOnly = true)
+    public TransactionPageDTO getHistory(UUID accountId, String cursor, int size) {
+        log.info("Getting transaction history for account: {} - size: {}, cursor: {}", accountId, size, cursor);
+
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Transaction> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = repository.findByAccountIdOrderByCreatedAtDescIdDesc(accountId, limit);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            rows = repository.findPageAfter(accountId, position.getCreatedAt(), position.getId(), limit);
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<Transaction> page = hasNext ? rows.subList(0, size) : rows;
+        List<TransactionResponseDTO> content = page.stream()
+                .map(t -> TransactionResponseDTO.fromEntity(t, "Transaction retrieved successfully"))
+                .toList();
+
+        return new TransactionPageDTO(content, hasNext ? TransactionCursor.encode(page.get(size - 1)) : null);
+    }
+
     public Page<Transaction> getByAccountPaginated(UUID accountId, Pageable pageable) {
         log.info("Getting paginated transactions for account: {} - page: {}", accountId, pageable.getPageNumber());
         return repository.findByAccountId(accountId, pageable);
     }
 
-    public List<Transaction> search(Transaction.Type type, LocalDate date) {
-        log.info("Searching transactions - type: {}, date: {}", type, date);
-        
-        if (type != null && date != null) {
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-            return repository.findByTypeAndCreatedAtBetween(type, startOfDay, endOfDay);
-        } else if (type != null) {
-            return repository.findByType(type);
-        } else if (date != null) {
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-            return repository.findByCreatedAtBetween(startOfDay, endOfDay);
-        } else {
-            return repository.findAll();
+    /**
+     * Recherche multi-critères, toujours paginée ; les filtres absents sont ignorés.
+     * Tri par date décroissante, sans requête COUNT.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Transaction> search(TransactionSearchCriteria criteria, int page, int size) {
+        log.info("Searching transactions - {} - page: {}, size: {}", criteria, page, size);
+
+        if (page < 0 || size <= 0 || size > MAX_SEARCH_PAGE_SIZE) {
+            throw new BusinessException("page must be >= 0 and size between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+        if ((long) (page + 1) * size > MAX_SEARCH_RESULTS) {
+            throw new BusinessException("Search is limited to the first " + MAX_SEARCH_RESULTS
+                    + " results, narrow the filters");
+        }
+        if (criteria.getMinAmount() != null && criteria.getMaxAmount() != null
+                && criteria.getMinAmount().compareTo(criteria.getMaxAmount()) > 0) {
+            throw new BusinessException("minAmount must be less than or equal to maxAmount");
         }
+        if (criteria.getFrom() != null && criteria.getTo() != null && criteria.getFrom().isAfter(criteria.getTo())) {
+            throw new BusinessException("from must be before or equal to to");
+        }
+
+        Specification<Transaction> spec = Specification.allOf(
+                TransactionSpecifications.hasType(criteria.getType()),
+                TransactionSpecifications.hasStatus(criteria.getStatus()),
+                TransactionSpecifications.hasAccount(criteria.getAccountId()),
+                TransactionSpecifications.amountAtLeast(criteria.getMinAmount()),
+                TransactionSpecifications.amountAtMost(criteria.getMaxAmount()),
+                TransactionSpecifications.createdFrom(
+                        criteria.getFrom() != null ? criteria.getFrom().atStartOfDay() : null),
+                TransactionSpecifications.createdBefore(
+                        criteria.getTo() != null ? criteria.getTo().plusDays(1).atStartOfDay() : null));
+
+        return repository.findSlice(spec,
+                PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt", "id")));
+    }
+
+    // Opération sans Idempotency-Key : identifiant propre à cette requête
+    private static String newOperationId() {
+        return UUID.randomUUID().toString();
     }
 
     // Méthodes de validation
@@ -186,8 +724,15 @@ public class TransactionService {
         }
     }
 
+    /**
+     * Une opération enregistrée au statut FAILED compte comme échec métier
+     */
+    private static String outcome(TransactionResponseDTO response) {
+        return "SUCCESS".equals(response.getStatus()) ? OperationMetrics.SUCCESS : OperationMetrics.FAILED;
+    }
+
     private void validateAccountExists(UUID accountId) {
-        if (!accountClient.accountExists(accountId)) {
+        if (!accountStatusCache.isActive(accountId)) {
             throw new BusinessException("Account not found: " + accountId);
         }
     }
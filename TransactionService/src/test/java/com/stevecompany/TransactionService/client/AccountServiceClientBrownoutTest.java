@@ -0,0 +1,149 @@
+package com.stevecompany.TransactionService.client;
+
+import com.stevecompany.TransactionService.config.RestTemplateConfig;
+import com.stevecompany.TransactionService.exception.ServiceUnavailableException;
+import com.stevecompany.TransactionService.metrics.OperationMetrics;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Account Service simulé (serveur HTTP local) qui passe d'un fonctionnement
+ * normal à une forte latence. Le client est construit par RestTemplateConfig
+ * (pool HttpClient 5, délais bornés) : seuls les appels nécessaires à
+ * l'ouverture du circuit atteignent le service lent, les suivants sont
+ * refusés sans appel, et aucune connexion du pool ne reste empruntée.
+ */
+class AccountServiceClientBrownoutTest {
+
+	// Fenêtre de 10 appels, seuil de 50 % : après 10 succès, le circuit s'ouvre au 5e échec
+	private static final int FAILURES_TO_OPEN = 5;
+
+	private HttpServer stub;
+	private volatile long stubDelayMs;
+	private final AtomicInteger stubRequests = new AtomicInteger();
+	private SimpleMeterRegistry meterRegistry;
+	private PoolingHttpClientConnectionManager connectionManager;
+	private CloseableHttpClient httpClient;
+	private AccountServiceResilience resilience;
+	private AccountServiceClient client;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		stub.setExecutor(Executors.newCachedThreadPool());
+		stub.createContext("/api/accounts/", exchange -> {
+			stubRequests.incrementAndGet();
+			try {
+				Thread.sleep(stubDelayMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			String id = exchange.getRequestURI().getPath().substring("/api/accounts/".length());
+			byte[] body = ("{\"id\":\"" + id + "\",\"status\":\"ACTIVE\",\"balance\":100.00}")
+					.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			try {
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			} catch (IOException e) {
+				// le client a déjà abandonné (délai de lecture dépassé)
+			}
+		});
+		stub.start();
+
+		meterRegistry = new SimpleMeterRegistry();
+		RestTemplateConfig config = new RestTemplateConfig();
+		connectionManager = config.httpConnectionManager(20, 10, Duration.ofMillis(200), Duration.ofMillis(200),
+				Duration.ofMinutes(5), meterRegistry);
+		httpClient = config.httpClient(connectionManager, Duration.ofMillis(500), Duration.ofMillis(200),
+				Duration.ofSeconds(30));
+
+		resilience = new AccountServiceResilience(meterRegistry,
+				50f, Duration.ofMillis(100), 10, 5, Duration.ofSeconds(30), 10, 3, Duration.ofMillis(10));
+		client = new AccountServiceClient(config.restTemplate(httpClient, ObservationRegistry.NOOP), resilience,
+				new OperationMetrics(meterRegistry), "http://127.0.0.1:" + stub.getAddress().getPort());
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		httpClient.close();
+		connectionManager.close();
+		stub.stop(0);
+	}
+
+	@Test
+	void breakerOpensAndRejectsCallsDuringBrownout() {
+		// Fonctionnement normal
+		stubDelayMs = 0;
+		for (int i = 0; i < 10; i++) {
+			assertThat(client.getStatus(UUID.randomUUID())).isEqualTo("ACTIVE");
+		}
+		assertThat(resilience.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		// Dégradation : Account Service répond en 2 s, au-delà du délai de lecture
+		stubDelayMs = 2000;
+		stubRequests.set(0);
+		for (int i = 0; i < 50; i++) {
+			assertThatThrownBy(() -> client.getStatus(UUID.randomUUID()))
+					.isInstanceOf(ServiceUnavailableException.class);
+		}
+
+		assertThat(resilience.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(meterRegistry.get("account.client.circuit.transitions")
+				.tag("from", "CLOSED").tag("to", "OPEN").counter().count())
+				.isEqualTo(1.0);
+
+		// Un délai de lecture n'est pas rejoué : seuls les appels qui ouvrent le circuit
+		// atteignent le service, tous les suivants sont refusés sans appel
+		assertThat(stubRequests.get()).isEqualTo(FAILURES_TO_OPEN);
+		assertThat(meterRegistry.get("resilience4j.circuitbreaker.not.permitted.calls").functionCounter().count())
+				.isEqualTo(50 - FAILURES_TO_OPEN);
+		assertThat(meterRegistry.get("client.calls.errors")
+				.tag("operation", "getStatus").tag("exception", "ServiceUnavailableException").counter().count())
+				.isEqualTo(50);
+
+		// Les connexions des appels abandonnés sont rendues au pool
+		assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+				.tag("httpclient", "inter-service").tag("state", "leased").gauge().value())
+				.isZero();
+	}
+
+	@Test
+	void notFoundAccountDoesNotTripTheBreaker() {
+		stub.removeContext("/api/accounts/");
+		stub.createContext("/api/accounts/", exchange -> {
+			byte[] body = "{\"message\":\"Account not found\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(400, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(client.getStatus(UUID.randomUUID())).isNull();
+		}
+		assertThat(resilience.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+}
@@ -0,0 +1,227 @@
+package com.stevecompany.TransactionService.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevecompany.TransactionService.dto.TransactionRequestDTO;
+import com.stevecompany.TransactionService.dto.TransactionResponseDTO;
+import com.stevecompany.TransactionService.entity.IdempotencyRecord;
+import com.stevecompany.TransactionService.exception.BusinessException;
+import com.stevecompany.TransactionService.exception.IdempotencyConflictException;
+import com.stevecompany.TransactionService.exception.ServiceUnavailableException;
+import com.stevecompany.TransactionService.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Réservation, rejeu, réservation perdue et échec d'une opération avec
+ * Idempotency-Key ; la table idempotency_keys est simulée (Mockito).
+ */
+class IdempotencyServiceTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+	private final TransactionRequestDTO request = request("100.00");
+
+	private IdempotencyRecordRepository repository;
+	private SimpleMeterRegistry registry;
+	private IdempotencyService service;
+	private List<String> operationIds;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(IdempotencyRecordRepository.class);
+		registry = new SimpleMeterRegistry();
+		service = newService();
+		operationIds = new ArrayList<>();
+	}
+
+	@Test
+	void firstRequestClaimsKeyAndLaterRequestsReplayIt() {
+		when(repository.tryClaim(anyString(), anyString(), any(), any())).thenReturn(1);
+		when(repository.complete(anyString(), any(), eq(IdempotencyRecord.Status.COMPLETED), anyString(), any()))
+				.thenReturn(1);
+
+		TransactionResponseDTO first = service.execute("alice", "key-1", "DEPOSIT", request, action());
+		TransactionResponseDTO second = service.execute("alice", "key-1", "DEPOSIT", request, action());
+
+		assertThat(second).isSameAs(first);
+		assertThat(operationIds).hasSize(1);
+		verify(repository, times(1)).tryClaim(anyString(), anyString(), any(), any());
+		assertThat(registry.counter("idempotency.replays").count()).isEqualTo(1);
+	}
+
+	@Test
+	void replaysResponseStoredByAnotherInstance() {
+		Claim claim = claimAndComplete();
+
+		IdempotencyService otherInstance = newService();
+		when(repository.tryClaim(anyString(), anyString(), any(), any())).thenReturn(0);
+		when(repository.reclaim(anyString(), anyString(), any(), any())).thenReturn(0);
+		when(repository.findById(claim.key())).thenReturn(Optional.of(
+				record(claim.key(), claim.requestHash(), IdempotencyRecord.Status.COMPLETED, claim.response())));
+
+		TransactionResponseDTO replayed = otherInstance.execute("alice", "key-1", "DEPOSIT", request, action());
+
+		assertThat(replayed.getTransactionId()).isEqualTo(claim.transactionId());
+		assertThat(operationIds).hasSize(1);
+	}
+
+	@Test
+	void rejectsSameKeyForAnotherRequestOrWhileInProgress() {
+		Claim claim = claimAndComplete();
+
+		IdempotencyService otherInstance = newService();
+		when(repository.tryClaim(anyString(), anyString(), any(), any())).thenReturn(0);
+		when(repository.reclaim(anyString(), anyString(), any(), any())).thenReturn(0);
+		when(repository.findById(claim.key())).thenReturn(Optional.of(
+				record(claim.key(), claim.requestHash(), IdempotencyRecord.Status.IN_PROGRESS, null)));
+
+		assertThatThrownBy(() -> otherInstance.execute("alice", "key-1", "DEPOSIT", request("250.00"), action()))
+				.isInstanceOf(IdempotencyConflictException.class)
+				.hasMessageContaining("different request");
+		assertThatThrownBy(() -> otherInstance.execute("alice", "key-1", "DEPOSIT", request, action()))
+				.isInstanceOf(IdempotencyConflictException.class)
+				.hasMessageContaining("in progress");
+		assertThat(operationIds).hasSize(1);
+	}
+
+	@Test
+	void lostReservationKeepsTheLedgerWriteButStoresNothing() {
+		when(repository.tryClaim(anyString(), anyString(), any(), any())).thenReturn(1);
+		when(repository.complete(anyString(), any(), any(), anyString(), any())).thenReturn(0);
+
+		TransactionResponseDTO response = service.execute("alice", "key-1", "DEPOSIT", request, action());
+
+		// Aucune exception : l'écriture du ledger est validée, la réponse n'est pas mise en cache
+		assertThat(response.getStatus()).isEqualTo("SUCCESS");
+		service.execute("alice", "key-1", "DEPOSIT", request, action());
+		verify(repository, times(2)).tryClaim(anyString(), anyString(), any(), any());
+		assertThat(operationIds).hasSize(2).containsOnly(operationIds.get(0));
+	}
+
+	@Test
+	void failedAttemptMarksKeyUnknownAndRetryReusesOperationId() {
+		when(repository.tryClaim(anyString(), anyString(), any(), any())).thenReturn(1, 0);
+		when(repository.reclaim(anyString(), anyString(), any(), any())).thenReturn(1);
+		when(repository.complete(anyString(), any(), any(), anyString(), any())).thenReturn(1);
+
+		assertThatThrownBy(() -> service.execute("alice", "key-1", "DEPOSIT", request, (operationId, beforeCommit) -> {
+			operationIds.add(operationId);
+			throw new ServiceUnavailableException("Account Service outcome unknown");
+		})).isInstanceOf(ServiceUnavailableException.class);
+
+		ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<LocalDateTime> claimedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+		verify(repository).tryClaim(key.capture(), anyString(), claimedAt.capture(), any());
+		verify(repository).markUnknown(eq(key.getValue()), eq(claimedAt.getValue()), any());
+
+		TransactionResponseDTO retried = service.execute("alice", "key-1", "DEPOSIT", request, action());
+
+		assertThat(retried.getStatus()).isEqualTo("SUCCESS");
+		assertThat(operationIds).hasSize(2).containsOnly(operationIds.get(0));
+		verify(repository, never()).deleteById(anyString());
+	}
+
+	@Test
+	void keysAreScopedToTheCaller() {
+		when(repository.tryClaim(anyString(), anyString(), any(), any())).thenReturn(1);
+		when(repository.complete(anyString(), any(), any(), anyString(), any())).thenReturn(1);
+
+		service.execute("alice", "key-1", "DEPOSIT", request, action());
+		service.execute("bob", "key-1", "DEPOSIT", request, action());
+
+		ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+		verify(repository, times(2)).tryClaim(keys.capture(), anyString(), any(), any());
+		assertThat(keys.getAllValues()).doesNotHaveDuplicates();
+		assertThat(operationIds).doesNotHaveDuplicates();
+	}
+
+	@Test
+	void requestWithoutKeyRunsWithItsOwnOperationId() {
+		service.execute("alice", null, "DEPOSIT", request, action());
+		service.execute("alice", null, "DEPOSIT", request, action());
+
+		assertThat(operationIds).hasSize(2).doesNotHaveDuplicates();
+		verifyNoInteractions(repository);
+	}
+
+	@Test
+	void rejectsOversizedKey() {
+		assertThatThrownBy(() -> service.execute("alice", "k".repeat(101), "DEPOSIT", request, action()))
+				.isInstanceOf(BusinessException.class);
+		verifyNoInteractions(repository);
+	}
+
+	private record Claim(String key, String requestHash, String response, UUID transactionId) {
+	}
+
+	// Première requête traitée par une autre instance : clé, empreinte et réponse stockées
+	private Claim claimAndComplete() {
+		when(repository.tryClaim(anyString(), anyString(), any(), any())).thenReturn(1);
+		when(repository.complete(anyString(), any(), any(), anyString(), any())).thenReturn(1);
+		TransactionResponseDTO response = service.execute("alice", "key-1", "DEPOSIT", request, action());
+
+		ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+		verify(repository).tryClaim(key.capture(), hash.capture(), any(), any());
+		verify(repository).complete(eq(key.getValue()), any(), any(), json.capture(), any());
+		return new Claim(key.getValue(), hash.getValue(), json.getValue(), response.getTransactionId());
+	}
+
+	private BiFunction<String, Consumer<TransactionResponseDTO>, TransactionResponseDTO> action() {
+		return (operationId, beforeCommit) -> {
+			operationIds.add(operationId);
+			TransactionResponseDTO response = new TransactionResponseDTO();
+			response.setTransactionId(UUID.randomUUID());
+			response.setStatus("SUCCESS");
+			beforeCommit.accept(response);
+			return response;
+		};
+	}
+
+	private IdempotencyService newService() {
+		return new IdempotencyService(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+				objectMapper, registry, Duration.ofHours(24), Duration.ofMinutes(15), 1000);
+	}
+
+	private static IdempotencyRecord record(String key, String hash, IdempotencyRecord.Status status, String response) {
+		IdempotencyRecord record = new IdempotencyRecord();
+		record.setIdempotencyKey(key);
+		record.setRequestHash(hash);
+		record.setStatus(status);
+		record.setResponse(response);
+		return record;
+	}
+
+	private static TransactionRequestDTO request(String amount) {
+		TransactionRequestDTO dto = new TransactionRequestDTO();
+		dto.setAccountId(UUID.fromString("6f1c2d3e-4a5b-4c6d-8e7f-901234567890"));
+		dto.setAmount(new BigDecimal(amount));
+		return dto;
+	}
+}
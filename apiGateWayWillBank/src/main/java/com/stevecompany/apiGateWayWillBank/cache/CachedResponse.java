@@ -0,0 +1,19 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.cache;
+
+/**
+ *
+ * @author steve
+ */
+import org.springframework.http.MediaType;
+
+import java.time.Duration;
+
+/**
+ * Réponse 200 mise en cache : corps, type de contenu, ETag et durée de vie.
+ */
+public record CachedResponse(byte[] body, MediaType contentType, String etag, Duration ttl) {
+}
@@ -0,0 +1,165 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.cache;
+
+/**
+ *
+ * @author steve
+ */
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache des réponses GET des routes listées dans gateway.response-cache.routes,
+ * chacune avec sa durée de vie. Borné en octets (somme des corps) ; une
+ * réponse plus grande que max-entry-size n'est pas conservée.
+ *
+ * Les clés incluent le sujet du JWT vérifié : un appelant ne reçoit jamais
+ * la réponse d'un autre. Chaque principal a une génération, incrémentée par ses
+ * écritures sur toute route (POST, PUT, PATCH, DELETE) : ses lectures
+ * suivantes ne servent plus les anciennes entrées, qui expirent d'elles-mêmes.
+ *
+ * Métriques : cache "gateway.response" (hits, misses, évictions, taille),
+ * gateway.response.cache.hit.ratio et gateway.response.cache.requests
+ * (tags route, result=hit|miss|not_modified).
+ */
+@Component
+public class ResponseCache {
+
+    public static final String HIT = "hit";
+    public static final String MISS = "miss";
+    public static final String NOT_MODIFIED = "not_modified";
+
+    private final Map<String, Duration> routeTtls;
+    private final int maxEntryBytes;
+    private final Cache<String, CachedResponse> responses;
+    private final Cache<String, AtomicLong> generations;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public ResponseCache(MeterRegistry meterRegistry,
+                         @Value("${gateway.response-cache.routes:}") String routeTtls,
+                         @Value("${gateway.response-cache.max-size:64MB}") DataSize maxSize,
+                         @Value("${gateway.response-cache.max-entry-size:256KB}") DataSize maxEntrySize) {
+        this.meterRegistry = meterRegistry;
+        this.routeTtls = parseRoutes(routeTtls);
+        this.maxEntryBytes = (int) maxEntrySize.toBytes();
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedResponse response) -> key.length() + response.body().length)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                        return response.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+                        return response.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        // Une génération n'a plus d'utilité une fois toutes ses entrées expirées
+        Duration longestTtl = this.routeTtls.values().stream().max(Duration::compareTo).orElse(Duration.ZERO);
+        this.generations = Caffeine.newBuilder()
+                .expireAfterAccess(longestTtl.plusMinutes(1))
+                .maximumSize(100_000)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "gateway.response");
+        Gauge.builder("gateway.response.cache.hit.ratio", responses, cache -> cache.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    public boolean isCacheable(String routeId) {
+        return routeTtls.containsKey(routeId);
+    }
+
+    public String key(String routeId, String principal, String pathAndQuery, String accept) {
+        long generation = generations.get(principal, ResponseCache::newGeneration).get();
+        return routeId + '|' + principal + '|' + generation + '|' + pathAndQuery + '|' + accept;
+    }
+
+    public CachedResponse get(String key) {
+        return responses.getIfPresent(key);
+    }
+
+    /**
+     * Conserve une réponse 200 si sa taille et son Cache-Control le permettent.
+     * Garde l'ETag du service s'il en fournit un, sinon le calcule sur le corps.
+     */
+    public CachedResponse put(String routeId, String key, HttpHeaders headers, byte[] body) {
+        String etag = headers.getETag() != null
+                ? headers.getETag()
+                : "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+        CachedResponse response = new CachedResponse(body, headers.getContentType(), etag, routeTtls.get(routeId));
+
+        String cacheControl = headers.getCacheControl();
+        boolean storable = body.length <= maxEntryBytes
+                && (cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private")));
+        if (storable) {
+            responses.put(key, response);
+        }
+        return response;
+    }
+
+    public void invalidatePrincipal(String principal) {
+        generations.get(principal, ResponseCache::newGeneration).incrementAndGet();
+    }
+
+    public void record(String routeId, String result) {
+        counters.computeIfAbsent(routeId + '|' + result, k -> Counter.builder("gateway.response.cache.requests")
+                        .tag("route", routeId)
+                        .tag("result", result)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    // Point de départ toujours nouveau : une génération évincée puis recréée
+    // ne peut pas retomber sur d'anciennes entrées encore en cache
+    private static AtomicLong newGeneration(String principal) {
+        return new AtomicLong(System.nanoTime());
+    }
+
+    // "composite-service=5s,account-service=2s"
+    private static Map<String, Duration> parseRoutes(String value) {
+        Map<String, Duration> ttls = new HashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Response cache route must be <routeId>=<ttl>, got " + entry);
+            }
+            ttls.put(entry.substring(0, separator).trim(),
+                    DurationStyle.detectAndParse(entry.substring(separator + 1).trim()));
+        }
+        return Map.copyOf(ttls);
+    }
+}
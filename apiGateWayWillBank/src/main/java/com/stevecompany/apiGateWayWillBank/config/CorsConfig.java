@@ -54,7 +54,7 @@ public class CorsConfig {
         ));
 
         config.setAllowedHeaders(Arrays.asList("*"));
-        config.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        config.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Trace-Id", "X-Cache"));
         config.setAllowCredentials(true);
         config.setMaxAge(3600L);
 
@@ -8,37 +8,170 @@ package com.stevecompany.apiGateWayWillBank.config;
  *
  * @author steve
  */
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
 import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.GatewayFilterSpec;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+
+/**
+ * Routes du gateway : un préfixe de chemin par service, des délais de
+ * connexion et de réponse propres à chaque route, un rejeu avec backoff
+ * des GET seulement (un POST rejoué pourrait débiter deux fois) et un
+ * circuit breaker qui renvoie vers FallbackController.
+ * Les services exposent les mêmes chemins que le gateway : pas de réécriture.
+ */
 @Configuration
 public class GatewayRoutesConfig {
 
+    private static final int GET_RETRIES = 2;
+    private static final Duration FIRST_BACKOFF = Duration.ofMillis(50);
+    private static final Duration MAX_BACKOFF = Duration.ofMillis(500);
+
+    @Value("${gateway.timeouts.connect:1s}")
+    private Duration connectTimeout;
+
+    @Value("${gateway.timeouts.customer-service:3s}")
+    private Duration customerTimeout;
+
+    @Value("${gateway.timeouts.account-service:3s}")
+    private Duration accountTimeout;
+
+    @Value("${gateway.timeouts.transaction-service:12s}")
+    private Duration transactionTimeout;
+
+    @Value("${gateway.timeouts.composite-service:10s}")
+    private Duration compositeTimeout;
+
+    @Value("${gateway.timeouts.statement-export:30s}")
+    private Duration statementExportTimeout;
+
+    @Value("${gateway.timeouts.notification-service:3s}")
+    private Duration notificationTimeout;
+
+    @Value("${gateway.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${gateway.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${gateway.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${gateway.circuit-breaker.open-duration:10s}")
+    private Duration openDuration;
+
     @Bean
     public RouteLocator gatewayRoutes(RouteLocatorBuilder builder) {
         return builder.routes()
+                // Export de relevé en flux : ni rejeu ni circuit breaker, la réponse
+                // peut durer bien au-delà du délai d'attente des en-têtes
+                .route("statement-export", r -> r
+                    .order(-1)
+                    .path("/api/dashboard/accounts/*/statement/export")
+                    .and().method(HttpMethod.GET)
+                    .metadata(timeouts(statementExportTimeout))
+                    .uri("lb://COMPOSITE-SERVICE-WILLBANK"))
+
                 .route("customer-service", r -> r
                     .path("/api/customers/**")
+                    .filters(f -> resilient(f, "customer-service", "/fallback/customer"))
+                    .metadata(timeouts(customerTimeout))
                     .uri("lb://CUSTOMER-SERVICE-WILLBANK"))
                 
                 .route("account-service", r -> r
                     .path("/api/accounts/**")
+                    .filters(f -> resilient(f, "account-service", "/fallback/account"))
+                    .metadata(timeouts(accountTimeout))
                     .uri("lb://ACCOUNT-SERVICE-WILLBANK"))
                 
                 .route("transaction-service", r -> r
                     .path("/api/transactions/**")
+                    .filters(f -> resilient(f, "transaction-service", "/fallback/transaction"))
+                    .metadata(timeouts(transactionTimeout))
                     .uri("lb://TRANSACTION-SERVICE-WILLBANK"))
                 
                 .route("composite-service", r -> r
                     .path("/api/dashboard/**")
+                    .filters(f -> resilient(f, "composite-service", "/fallback/dashboard"))
+                    .metadata(timeouts(compositeTimeout))
                     .uri("lb://COMPOSITE-SERVICE-WILLBANK"))
                 
                 .route("notification-service", r -> r
                     .path("/api/notifications/**")
+                    .filters(f -> resilient(f, "notification-service", "/fallback/notification"))
+                    .metadata(timeouts(notificationTimeout))
                     .uri("lb://NOTIFICATION-SERVICE-WILLBANK"))
                 
                 .build();
     }
+
+    /**
+     * Un circuit par route. Le time limiter couvre tous les essais (connexion,
+     * réponse et backoff) pour ne pas couper un rejeu en cours ; le délai de réponse
+     * de chaque essai est celui de la route.
+     */
+    @Bean
+    public Customizer<ReactiveResilience4JCircuitBreakerFactory> circuitBreakerCustomizer() {
+        CircuitBreakerConfig breaker = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .build();
+
+        return factory -> routeTimeouts().forEach((routeId, timeout) -> factory.configure(builder -> builder
+                .circuitBreakerConfig(breaker)
+                .timeLimiterConfig(TimeLimiterConfig.custom()
+                        .timeoutDuration(timeout.plus(connectTimeout).multipliedBy(GET_RETRIES + 1)
+                                .plus(MAX_BACKOFF.multipliedBy(GET_RETRIES)))
+                        .build()), routeId));
+    }
+
+    // Les POST/PUT traversent le même circuit mais ne sont jamais rejoués ; un
+    // client qui reçoit le fallback peut les renvoyer avec le même Idempotency-Key
+    // (504 pour un POST de transaction sans réponse dans le délai)
+    private static GatewayFilterSpec resilient(GatewayFilterSpec filters, String circuit, String fallback) {
+        return filters
+                .circuitBreaker(config -> config
+                        .setName(circuit)
+                        .setFallbackUri("forward:" + fallback))
+                .retry(config -> config
+                        .setRetries(GET_RETRIES)
+                        .setMethods(HttpMethod.GET)
+                        .setSeries()
+                        .setStatuses(HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.GATEWAY_TIMEOUT)
+                        .setBackoff(FIRST_BACKOFF, MAX_BACKOFF, 2, true));
+    }
+
+    private Map<String, Object> timeouts(Duration responseTimeout) {
+        return Map.of(
+                CONNECT_TIMEOUT_ATTR, connectTimeout.toMillis(),
+                RESPONSE_TIMEOUT_ATTR, responseTimeout.toMillis());
+    }
+
+    private Map<String, Duration> routeTimeouts() {
+        Map<String, Duration> timeouts = new LinkedHashMap<>();
+        timeouts.put("customer-service", customerTimeout);
+        timeouts.put("account-service", accountTimeout);
+        timeouts.put("transaction-service", transactionTimeout);
+        timeouts.put("composite-service", compositeTimeout);
+        timeouts.put("notification-service", notificationTimeout);
+        return timeouts;
+    }
 }
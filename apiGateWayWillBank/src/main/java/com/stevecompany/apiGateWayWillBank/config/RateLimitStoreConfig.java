@@ -0,0 +1,53 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.config;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.apiGateWayWillBank.ratelimit.LocalRateLimitStore;
+import com.stevecompany.apiGateWayWillBank.ratelimit.RateLimitStore;
+import com.stevecompany.apiGateWayWillBank.ratelimit.RedisRateLimitStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * gateway.rate-limit.store=local (défaut) : limite par instance du gateway.
+ * gateway.rate-limit.store=redis : limite commune à tous les réplicas,
+ * via le serveur spring.data.redis.*.
+ */
+@Configuration
+public class RateLimitStoreConfig {
+
+    @Value("${gateway.rate-limit.max-keys:100000}")
+    private long maxKeys;
+
+    @Value("${gateway.rate-limit.idle-timeout:10m}")
+    private Duration idleTimeout;
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.store", havingValue = "local", matchIfMissing = true)
+    public RateLimitStore localRateLimitStore(MeterRegistry meterRegistry) {
+        return new LocalRateLimitStore(meterRegistry, maxKeys, idleTimeout);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.store", havingValue = "redis")
+    public RateLimitStore redisRateLimitStore(ReactiveStringRedisTemplate redisTemplate,
+                                              MeterRegistry meterRegistry,
+                                              @Value("${gateway.rate-limit.redis.lease-size:10}") int leaseSize,
+                                              @Value("${gateway.rate-limit.redis.lease-ttl:1s}") Duration leaseTtl) {
+        // Repli local si Redis ne répond pas
+        LocalRateLimitStore fallback = new LocalRateLimitStore(meterRegistry, maxKeys, idleTimeout);
+        return new RedisRateLimitStore(redisTemplate, fallback, meterRegistry, leaseSize, leaseTtl, maxKeys);
+    }
+}
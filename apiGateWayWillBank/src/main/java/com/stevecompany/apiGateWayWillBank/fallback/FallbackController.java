@@ -8,17 +8,29 @@ package com.stevecompany.apiGateWayWillBank.fallback;
  *
  * @author steve
  */
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR;
 
 @RestController
 public class FallbackController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
     @RequestMapping(value = "/fallback/customer", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<Map<String, Object>> customerFallback() {
         return Mono.just(Map.of(
@@ -29,6 +41,7 @@ public class FallbackController {
         ));
     }
 
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
     @RequestMapping(value = "/fallback/account", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<Map<String, Object>> accountFallback() {
         return Mono.just(Map.of(
@@ -39,12 +52,69 @@ public class FallbackController {
         ));
     }
 
+    /**
+     * Une écriture (POST) sans réponse dans le délai a pu être appliquée : 504
+     * avec l'Idempotency-Key de la requête, à renvoyer telle quelle pour obtenir
+     * son résultat. Les autres cas (circuit ouvert, service injoignable) : 503,
+     * rien n'a été transmis.
+     */
     @RequestMapping(value = "/fallback/transaction", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Mono<Map<String, Object>> transactionFallback() {
+    public Mono<ResponseEntity<Map<String, Object>>> transactionFallback(ServerWebExchange exchange) {
+        Throwable cause = exchange.getAttribute(CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR);
+        if (HttpMethod.GET.equals(exchange.getRequest().getMethod()) || !isTimeout(cause)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                    "error", "Service Unavailable",
+                    "message", "Transaction service is currently unavailable. Please try again later.",
+                    "service", "transaction-service",
+                    "status", HttpStatus.SERVICE_UNAVAILABLE.value()
+            )));
+        }
+
+        String key = exchange.getRequest().getHeaders().getFirst(IDEMPOTENCY_KEY_HEADER);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", "Gateway Timeout");
+        body.put("message", key != null
+                ? "The transaction outcome is unknown. Retry with the same Idempotency-Key to get its result."
+                : "The transaction outcome is unknown. Check the account history before retrying.");
+        body.put("service", "transaction-service");
+        body.put("status", HttpStatus.GATEWAY_TIMEOUT.value());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT);
+        if (key != null) {
+            body.put("idempotencyKey", key);
+            response.header(IDEMPOTENCY_KEY_HEADER, key);
+        }
+        return Mono.just(response.body(body));
+    }
+
+    // Délai de réponse de la route (504 de NettyRoutingFilter) ou du time limiter du circuit
+    private static boolean isTimeout(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || (t instanceof ResponseStatusException e
+                    && e.getStatusCode().value() == HttpStatus.GATEWAY_TIMEOUT.value())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @RequestMapping(value = "/fallback/dashboard", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Map<String, Object>> dashboardFallback() {
+        return Mono.just(Map.of(
+                "error", "Service Unavailable",
+                "message", "Dashboard service is currently unavailable. Please try again later.",
+                "service", "composite-service",
+                "status", HttpStatus.SERVICE_UNAVAILABLE.value()
+        ));
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @RequestMapping(value = "/fallback/notification", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Map<String, Object>> notificationFallback() {
         return Mono.just(Map.of(
                 "error", "Service Unavailable",
-                "message", "Transaction service is currently unavailable. Please try again later.",
-                "service", "transaction-service",
+                "message", "Notification service is currently unavailable. Please try again later.",
+                "service", "notification-service",
                 "status", HttpStatus.SERVICE_UNAVAILABLE.value()
         ));
     }
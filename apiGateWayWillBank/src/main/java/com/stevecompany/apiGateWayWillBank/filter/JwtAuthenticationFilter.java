@@ -8,54 +8,85 @@ package com.stevecompany.apiGateWayWillBank.filter;
  *
  * @author steve
  */
+import com.stevecompany.apiGateWayWillBank.security.JwtVerifier;
+import com.stevecompany.apiGateWayWillBank.security.VerifiedToken;
 import com.stevecompany.apiGateWayWillBank.util.JwtUtils;
-import com.stevecompany.apiGateWayWillBank.config.RateLimiterConfig;
+import com.stevecompany.apiGateWayWillBank.util.PrincipalUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
 
+/**
+ * Authentification par JWT signé (voir JwtVerifier). Le sujet du jeton
+ * devient le principal de la limitation de débit et du cache de réponses,
+ * et les claims configurés sont transmis aux services en en-têtes : ceux-ci
+ * n'ont pas à relire le jeton. Les mêmes en-têtes venant du client sont
+ * toujours retirés.
+ *
+ * gateway.jwt.static-token accepte encore le jeton fixe de l'UI, sans
+ * principal ni claims, le temps de sa migration vers des JWT signés.
+ */
 @Component
 public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
 
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    private final JwtVerifier verifier;
+    private final byte[] staticToken;
+
+    public JwtAuthenticationFilter(JwtVerifier verifier,
+                                   @Value("${gateway.jwt.static-token:}") String staticToken) {
+        this.verifier = verifier;
+        this.staticToken = staticToken.getBytes(StandardCharsets.UTF_8);
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange,
             org.springframework.cloud.gateway.filter.GatewayFilterChain chain) {
 
-        String authHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
-        String clientIp = exchange.getRequest().getRemoteAddress().getAddress().getHostAddress();
-
-        // Vérification JWT
-        if (!JwtUtils.isValid(authHeader)) {
-            log.warn("UNAUTHORIZED request from {}", clientIp);
+        String token = JwtUtils.bearerToken(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        if (token == null) {
+            log.warn("UNAUTHORIZED request from {}", PrincipalUtils.resolve(exchange));
             return unauthorizedResponse(exchange);
         }
 
-        // Rate limiting simple
-        var counter = RateLimiterConfig.COUNTERS.computeIfAbsent(clientIp, k -> new RateLimiterConfig.RequestCounter());
-        long now = System.currentTimeMillis();
+        ServerHttpRequest.Builder request = exchange.getRequest().mutate()
+                .headers(headers -> verifier.claimHeaderNames().forEach(headers::remove));
 
-        if (now - counter.timestamp > RateLimiterConfig.WINDOW_MS) {
-            counter.count.set(0);
-            counter.timestamp = now;
+        if (isStaticToken(token)) {
+            return chain.filter(exchange.mutate().request(request.build()).build());
         }
 
-        if (counter.count.incrementAndGet() > RateLimiterConfig.MAX_REQUESTS) {
-            log.warn("RATE LIMIT exceeded for {}", clientIp);
-            return tooManyRequestsResponse(exchange);
+        // Vérification JWT
+        Optional<VerifiedToken> verified = verifier.verify(token);
+        if (verified.isEmpty()) {
+            log.warn("UNAUTHORIZED request from {}", PrincipalUtils.resolve(exchange));
+            return unauthorizedResponse(exchange);
         }
 
-        return chain.filter(exchange);
+        request.headers(headers -> verified.get().claimHeaders().forEach(headers::set));
+        ServerWebExchange authenticated = exchange.mutate().request(request.build()).build();
+        authenticated.getAttributes().put(PrincipalUtils.PRINCIPAL_ATTRIBUTE, verified.get().subject());
+        return chain.filter(authenticated);
+    }
+
+    private boolean isStaticToken(String token) {
+        // Comparaison en temps constant
+        return staticToken.length > 0 && MessageDigest.isEqual(staticToken, token.getBytes(StandardCharsets.UTF_8));
     }
 
     private Mono<Void> unauthorizedResponse(ServerWebExchange exchange) {
@@ -68,18 +99,9 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
         return exchange.getResponse().writeWith(Mono.just(buffer));
     }
 
-    private Mono<Void> tooManyRequestsResponse(ServerWebExchange exchange) {
-        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
-        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
-
-        String jsonResponse = "{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded. Please try again later.\",\"status\":429}";
-        DataBuffer buffer = exchange.getResponse().bufferFactory().wrap(jsonResponse.getBytes(StandardCharsets.UTF_8));
-
-        return exchange.getResponse().writeWith(Mono.just(buffer));
-    }
-
     @Override
     public int getOrder() {
-        return -1;
+        // Avant la limitation de débit et le cache de réponses
+        return -4;
     }
 }
@@ -8,31 +8,54 @@ package com.stevecompany.apiGateWayWillBank.filter;
  *
  * @author steve
  */
+import io.micrometer.tracing.handler.TracingObservationHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+/**
+ * Journalise chaque requête avec son statut, sa durée et son traceId.
+ * Le traceId est renvoyé au client (X-Trace-Id) pour retrouver la trace
+ * complète : gateway, services appelés et événements RabbitMQ.
+ */
 @Component
 public class LoggingFilter implements GlobalFilter, Ordered {
 
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
     private static final Logger log = LoggerFactory.getLogger(LoggingFilter.class);
 
     @Override
     public Mono<Void> filter(org.springframework.web.server.ServerWebExchange exchange,
             org.springframework.cloud.gateway.filter.GatewayFilterChain chain) {
 
-        log.info("Request {} {}",
-                exchange.getRequest().getMethod(),
-                exchange.getRequest().getURI());
+        // Span serveur ouvert par l'observation WebFlux, en amont des filtres du gateway
+        String traceId = ServerRequestObservationContext.findCurrent(exchange.getAttributes())
+                .map(context -> context.get(TracingObservationHandler.TracingContext.class))
+                .map(TracingObservationHandler.TracingContext::getSpan)
+                .map(span -> span.context().traceId())
+                .orElse(null);
+        if (traceId != null) {
+            exchange.getResponse().getHeaders().set(TRACE_ID_HEADER, traceId);
+        }
 
-        return chain.filter(exchange);
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> log.info("Request {} {} -> {} in {} ms [trace {}]",
+                        exchange.getRequest().getMethod(),
+                        exchange.getRequest().getURI(),
+                        exchange.getResponse().getStatusCode(),
+                        (System.nanoTime() - start) / 1_000_000,
+                        traceId));
     }
 
     @Override
     public int getOrder() {
-        return 0;
+        // Avant JwtAuthenticationFilter : les rejets 401/429 sont aussi journalisés
+        return -5;
     }
 }
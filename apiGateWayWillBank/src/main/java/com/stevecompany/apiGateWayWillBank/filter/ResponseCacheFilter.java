@@ -0,0 +1,145 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.filter;
+
+/**
+ *
+ * @author steve
+ */
+import com.stevecompany.apiGateWayWillBank.cache.CachedResponse;
+import com.stevecompany.apiGateWayWillBank.cache.ResponseCache;
+import com.stevecompany.apiGateWayWillBank.util.PrincipalUtils;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sert les GET des routes configurées depuis ResponseCache, avec
+ * revalidation If-None-Match (304 sans corps). En cas d'absence, la réponse
+ * du service est lue en entier, conservée puis renvoyée avec son ETag.
+ * Un Cache-Control: no-cache de la requête force un passage par le service.
+ * Les écritures d'un principal invalident ses lectures en cache. Les
+ * requêtes sans JWT vérifié ne passent jamais par le cache.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private static final String CACHE_HEADER = "X-Cache";
+
+    private final ResponseCache cache;
+
+    public ResponseCacheFilter(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        // Seul un sujet de JWT vérifié identifie un utilisateur : une adresse IP
+        // peut être partagée (NAT, proxy) et exposerait les comptes d'un autre
+        String principal = PrincipalUtils.authenticated(exchange);
+        if (principal == null) {
+            return chain.filter(exchange);
+        }
+
+        // Une écriture sur n'importe quelle route (un virement, par exemple)
+        // peut modifier les comptes et le tableau de bord en cache
+        if (isWrite(request.getMethod())) {
+            return chain.filter(exchange)
+                    .doFinally(signal -> cache.invalidatePrincipal(principal));
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || !HttpMethod.GET.equals(request.getMethod()) || !cache.isCacheable(route.getId())) {
+            return chain.filter(exchange);
+        }
+        String routeId = route.getId();
+
+        String key = cache.key(routeId, principal, request.getURI().getRawPath()
+                + (request.getURI().getRawQuery() != null ? "?" + request.getURI().getRawQuery() : ""),
+                String.valueOf(request.getHeaders().getFirst(HttpHeaders.ACCEPT)));
+
+        CachedResponse cached = bypass(request) ? null : cache.get(key);
+        if (cached != null) {
+            return serve(exchange, routeId, cached);
+        }
+
+        cache.record(routeId, ResponseCache.MISS);
+        ServerHttpResponse response = exchange.getResponse();
+        ServerHttpResponseDecorator caching = new ServerHttpResponseDecorator(response) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (!HttpStatus.OK.equals(getStatusCode())) {
+                    return super.writeWith(body);
+                }
+                return DataBufferUtils.join(body).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+
+                    CachedResponse stored = cache.put(routeId, key, getHeaders(), bytes);
+                    getHeaders().setETag(stored.etag());
+                    getHeaders().set(CACHE_HEADER, "MISS");
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+        return chain.filter(exchange.mutate().response(caching).build());
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, String routeId, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.etag());
+        headers.set(CACHE_HEADER, "HIT");
+
+        if (exchange.getRequest().getHeaders().getIfNoneMatch().stream()
+                .anyMatch(etag -> etag.equals(cached.etag()) || etag.equals("*"))) {
+            cache.record(routeId, ResponseCache.NOT_MODIFIED);
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        cache.record(routeId, ResponseCache.HIT);
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            headers.setContentType(cached.contentType());
+        }
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static boolean isWrite(HttpMethod method) {
+        return HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method)
+                || HttpMethod.PATCH.equals(method) || HttpMethod.DELETE.equals(method);
+    }
+
+    private static boolean bypass(ServerHttpRequest request) {
+        String cacheControl = request.getHeaders().getCacheControl();
+        return cacheControl != null && (cacheControl.contains("no-cache") || cacheControl.contains("no-store"));
+    }
+
+    @Override
+    public int getOrder() {
+        // Après l'authentification et la limitation de débit, mais avant
+        // NettyWriteResponseFilter pour intercepter l'écriture du corps
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.ratelimit;
+
+/**
+ *
+ * @author steve
+ */
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Seaux en mémoire de l'instance, dans un cache borné en taille et expiré
+ * après inactivité : un balayage depuis de nombreuses IP évince les plus
+ * anciens au lieu de faire grossir la mémoire. Un seau évincé revient plein,
+ * ce qui est sans effet si l'inactivité dépasse le temps de remplissage.
+ * Avec plusieurs réplicas, la limite effective est multipliée par leur nombre.
+ */
+public class LocalRateLimitStore implements RateLimitStore {
+
+    private final Cache<String, TokenBucket> buckets;
+    private final LongSupplier clock;
+
+    public LocalRateLimitStore(MeterRegistry meterRegistry, long maxKeys, Duration idleTimeout) {
+        this(meterRegistry, maxKeys, idleTimeout, System::nanoTime);
+    }
+
+    // Horloge en nanosecondes, remplaçable dans les tests
+    LocalRateLimitStore(MeterRegistry meterRegistry, long maxKeys, Duration idleTimeout, LongSupplier clock) {
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "gateway.ratelimit.buckets");
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(String key, RateLimitPolicy policy) {
+        return Mono.just(acquire(key, policy));
+    }
+
+    public RateLimitDecision acquire(String key, RateLimitPolicy policy) {
+        long now = clock.getAsLong();
+        return buckets.get(key, k -> new TokenBucket(policy, now)).tryAcquire(now);
+    }
+}
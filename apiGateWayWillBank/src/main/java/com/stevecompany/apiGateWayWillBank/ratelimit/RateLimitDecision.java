@@ -0,0 +1,31 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.ratelimit;
+
+/**
+ *
+ * @author steve
+ */
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Résultat d'une demande de jeton : jetons restants si acceptée,
+ * délai avant le prochain jeton si rejetée.
+ */
+public record RateLimitDecision(boolean allowed, int limit, long remaining, long retryAfterNanos) {
+
+    static RateLimitDecision allowed(RateLimitPolicy policy, long remaining) {
+        return new RateLimitDecision(true, policy.burst(), remaining, 0);
+    }
+
+    static RateLimitDecision rejected(RateLimitPolicy policy, long retryAfterNanos) {
+        return new RateLimitDecision(false, policy.burst(), 0, retryAfterNanos);
+    }
+
+    /** Valeur de l'en-tête Retry-After, arrondie à la seconde supérieure. */
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.ratelimit;
+
+/**
+ *
+ * @author steve
+ */
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limite d'une route : jetons rendus par seconde et taille du burst.
+ * Format texte "débit:burst", par exemple "10:20".
+ */
+public record RateLimitPolicy(double refillPerSecond, int burst) {
+
+    public RateLimitPolicy {
+        if (refillPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate limit " + refillPerSecond + ":" + burst);
+        }
+    }
+
+    public static RateLimitPolicy parse(String value) {
+        String[] parts = value.trim().split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Rate limit must be <refillPerSecond>:<burst>, got " + value);
+        }
+        return new RateLimitPolicy(Double.parseDouble(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+    }
+
+    public long emissionIntervalNanos() {
+        return Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+    }
+
+    public long burstToleranceNanos() {
+        return emissionIntervalNanos() * burst;
+    }
+}
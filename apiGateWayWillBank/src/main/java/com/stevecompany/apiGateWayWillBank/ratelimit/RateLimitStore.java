@@ -0,0 +1,21 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.ratelimit;
+
+/**
+ *
+ * @author steve
+ */
+import reactor.core.publisher.Mono;
+
+/**
+ * Stockage des seaux de jetons : local à l'instance (LocalRateLimitStore)
+ * ou partagé entre les réplicas du gateway (RedisRateLimitStore).
+ * Choisi par gateway.rate-limit.store=local|redis.
+ */
+public interface RateLimitStore {
+
+    Mono<RateLimitDecision> tryAcquire(String key, RateLimitPolicy policy);
+}
@@ -0,0 +1,80 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.ratelimit;
+
+/**
+ *
+ * @author steve
+ */
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Un seau par couple (route, principal), conservé par le RateLimitStore
+ * configuré (voir RateLimitStoreConfig).
+ *
+ * Métriques : gateway.ratelimit.requests (tags route, outcome=allowed|rejected).
+ */
+@Component
+public class RateLimiter {
+
+    private final RateLimitPolicy defaultPolicy;
+    private final Map<String, RateLimitPolicy> routePolicies;
+    private final RateLimitStore store;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> allowedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectedCounters = new ConcurrentHashMap<>();
+
+    public RateLimiter(RateLimitStore store,
+                       MeterRegistry meterRegistry,
+                       @Value("${gateway.rate-limit.default:10:10}") String defaultPolicy,
+                       @Value("${gateway.rate-limit.routes:}") String routePolicies) {
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+        this.defaultPolicy = RateLimitPolicy.parse(defaultPolicy);
+        this.routePolicies = parseRoutes(routePolicies);
+    }
+
+    public Mono<RateLimitDecision> tryAcquire(String routeId, String principal) {
+        return store.tryAcquire(routeId + '|' + principal, policyFor(routeId))
+                .doOnNext(decision -> (decision.allowed() ? allowedCounters : rejectedCounters)
+                        .computeIfAbsent(routeId, route -> counter(route, decision.allowed()))
+                        .increment());
+    }
+
+    public RateLimitPolicy policyFor(String routeId) {
+        return routePolicies.getOrDefault(routeId, defaultPolicy);
+    }
+
+    private Counter counter(String routeId, boolean allowed) {
+        return Counter.builder("gateway.ratelimit.requests")
+                .tag("route", routeId)
+                .tag("outcome", allowed ? "allowed" : "rejected")
+                .register(meterRegistry);
+    }
+
+    // "transaction-service=20:40,composite-service=5:10"
+    private static Map<String, RateLimitPolicy> parseRoutes(String value) {
+        Map<String, RateLimitPolicy> policies = new HashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Route rate limit must be <routeId>=<refillPerSecond>:<burst>, got " + entry);
+            }
+            policies.put(entry.substring(0, separator).trim(), RateLimitPolicy.parse(entry.substring(separator + 1)));
+        }
+        return Map.copyOf(policies);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.ratelimit;
+
+/**
+ *
+ * @author steve
+ */
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seaux partagés par tous les réplicas du gateway, dans Redis (ou tout
+ * serveur compatible avec le protocole Redis et les scripts Lua).
+ *
+ * Pré-allocation : chaque instance réserve les jetons par lots de leaseSize
+ * en un seul aller-retour, puis les consomme localement (un CAS par requête).
+ * Les jetons réservés sont déjà décomptés du seau partagé, donc la limite
+ * globale n'est jamais dépassée ; un lot non consommé expire après leaseTtl
+ * et ses jetons sont perdus (limite plus stricte, jamais plus laxiste).
+ * Un rejet est lui aussi mémorisé jusqu'au prochain jeton, sans rappeler Redis.
+ *
+ * Si Redis est indisponible, la décision est prise par le store local
+ * (limite par instance) plutôt que de bloquer tout le trafic.
+ */
+public class RedisRateLimitStore implements RateLimitStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisRateLimitStore.class);
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisScript<List> script;
+    private final LocalRateLimitStore fallback;
+    private final int leaseSize;
+    private final long leaseTtlNanos;
+    private final Cache<String, Lease> leases;
+    private final Counter roundTrips;
+    private final Counter fallbacks;
+
+    public RedisRateLimitStore(ReactiveStringRedisTemplate redisTemplate,
+                               LocalRateLimitStore fallback,
+                               MeterRegistry meterRegistry,
+                               int leaseSize,
+                               Duration leaseTtl,
+                               long maxKeys) {
+        this.redisTemplate = redisTemplate;
+        this.script = RedisScript.of(new ClassPathResource("scripts/rate-limit-lease.lua"), List.class);
+        this.fallback = fallback;
+        this.leaseSize = leaseSize;
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(leaseTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, leases, "gateway.ratelimit.leases");
+        this.roundTrips = meterRegistry.counter("gateway.ratelimit.store.calls", "store", "redis");
+        this.fallbacks = meterRegistry.counter("gateway.ratelimit.store.fallbacks", "store", "redis");
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(String key, RateLimitPolicy policy) {
+        long now = System.nanoTime();
+        Lease lease = leases.getIfPresent(key);
+        if (lease != null && lease.isValid(now)) {
+            if (lease.isBlocked()) {
+                return Mono.just(RateLimitDecision.rejected(policy, lease.expiresAt - now));
+            }
+            long remaining = lease.take();
+            if (remaining >= 0) {
+                return Mono.just(RateLimitDecision.allowed(policy, remaining));
+            }
+        }
+        return reserve(key, policy);
+    }
+
+    /**
+     * Un aller-retour Redis : un jeton pour la requête courante, le reste
+     * du lot rejoint la réserve locale de la clé.
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<RateLimitDecision> reserve(String key, RateLimitPolicy policy) {
+        long intervalMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(policy.emissionIntervalNanos()));
+        int requested = Math.min(leaseSize, policy.burst());
+        roundTrips.increment();
+
+        return redisTemplate.execute(script, List.of(KEY_PREFIX + key), List.of(
+                        String.valueOf(intervalMicros),
+                        String.valueOf(intervalMicros * policy.burst()),
+                        String.valueOf(requested)))
+                .next()
+                .map(result -> {
+                    List<Long> reply = (List<Long>) result;
+                    long granted = reply.get(0);
+                    long now = System.nanoTime();
+                    if (granted <= 0) {
+                        long retryAfterNanos = TimeUnit.MICROSECONDS.toNanos(reply.get(1));
+                        leases.put(key, Lease.blocked(now + retryAfterNanos));
+                        return RateLimitDecision.rejected(policy, retryAfterNanos);
+                    }
+                    Lease lease = leases.asMap().compute(key, (k, current) ->
+                            current != null && current.isValid(now) && !current.isBlocked()
+                                    ? current.add(granted - 1)
+                                    : new Lease(granted - 1, now + leaseTtlNanos));
+                    return RateLimitDecision.allowed(policy, lease.remaining());
+                })
+                .onErrorResume(e -> {
+                    fallbacks.increment();
+                    log.warn("Rate limit store unavailable, deciding locally for {}: {}", key, e.getMessage());
+                    return fallback.tryAcquire(key, policy);
+                });
+    }
+
+    /** Jetons réservés localement pour une clé, ou rejet mémorisé jusqu'à expiresAt. */
+    static final class Lease {
+
+        private final AtomicLong tokens;
+        private final long expiresAt;
+        private final boolean blocked;
+
+        Lease(long tokens, long expiresAt) {
+            this(tokens, expiresAt, false);
+        }
+
+        private Lease(long tokens, long expiresAt, boolean blocked) {
+            this.tokens = new AtomicLong(tokens);
+            this.expiresAt = expiresAt;
+            this.blocked = blocked;
+        }
+
+        static Lease blocked(long until) {
+            return new Lease(0, until, true);
+        }
+
+        boolean isValid(long now) {
+            return expiresAt - now > 0;
+        }
+
+        boolean isBlocked() {
+            return blocked;
+        }
+
+        /** Jetons restants après prélèvement, ou -1 si la réserve est vide. */
+        long take() {
+            while (true) {
+                long current = tokens.get();
+                if (current <= 0) {
+                    return -1;
+                }
+                if (tokens.compareAndSet(current, current - 1)) {
+                    return current - 1;
+                }
+            }
+        }
+
+        Lease add(long granted) {
+            tokens.addAndGet(granted);
+            return this;
+        }
+
+        long remaining() {
+            return tokens.get();
+        }
+    }
+}
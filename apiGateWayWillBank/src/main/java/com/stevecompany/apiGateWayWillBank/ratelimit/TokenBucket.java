@@ -0,0 +1,51 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.ratelimit;
+
+/**
+ *
+ * @author steve
+ */
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seau à jetons sans verrou, sous forme GCRA (generic cell rate algorithm) :
+ * tout l'état tient dans un seul long, l'instant d'arrivée théorique (TAT)
+ * de la prochaine requête. Un jeton est rendu toutes les emissionInterval
+ * nanosecondes ; une requête est acceptée tant que le TAT ne dépasse pas
+ * "maintenant" de plus de burst intervalles. Une acceptation coûte un CAS,
+ * un rejet aucune écriture.
+ */
+public class TokenBucket {
+
+    private final RateLimitPolicy policy;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(RateLimitPolicy policy, long nowNanos) {
+        this.policy = policy;
+        // Seau plein à la création
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    public RateLimitDecision tryAcquire(long nowNanos) {
+        long interval = policy.emissionIntervalNanos();
+        long tolerance = policy.burstToleranceNanos();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            // Seau plein : le TAT passé ne donne pas de crédit au-delà du burst
+            long base = tat - nowNanos > 0 ? tat : nowNanos;
+            long next = base + interval;
+            long ahead = next - nowNanos;
+            if (ahead > tolerance) {
+                return RateLimitDecision.rejected(policy, ahead - tolerance);
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return RateLimitDecision.allowed(policy, (tolerance - ahead) / interval);
+            }
+        }
+    }
+
+    public RateLimitPolicy getPolicy() { return policy; }
+}
@@ -0,0 +1,250 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.security;
+
+/**
+ *
+ * @author steve
+ */
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.stevecompany.apiGateWayWillBank.util.JwtUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Vérification des JWT signés présentés au gateway.
+ *
+ * HS256 avec le secret gateway.jwt.hmac-secret (32 octets minimum) et RS256
+ * avec les clés publiques du fichier JWKS gateway.jwt.jwks-path, choisies par
+ * "kid". Le type de clé doit correspondre à l'algorithme de l'en-tête : un
+ * jeton HS256 n'est jamais vérifié avec une clé RSA publique. Les claims sub
+ * et exp sont obligatoires ; iss et aud sont contrôlés s'ils sont configurés.
+ *
+ * Un jeton vérifié est conservé, par empreinte SHA-256, jusqu'à son exp
+ * (au plus cache.max-ttl) : les requêtes suivantes avec le même jeton ne
+ * recalculent pas la signature. Un jeton refusé est lui aussi mémorisé,
+ * brièvement (negative-cache.ttl) : rejouer en boucle un jeton invalide ne
+ * coûte qu'une vérification de signature par période.
+ *
+ * Métriques : caches "gateway.jwt.tokens" et "gateway.jwt.rejected" (hits,
+ * misses, taille) et gateway.jwt.verifications (tag result=valid|invalid),
+ * qui ne compte que les vérifications de signature effectives.
+ */
+@Component
+public class JwtVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtVerifier.class);
+    private static final int MIN_HMAC_SECRET_BYTES = 32;
+
+    private final ConfigurableJWTProcessor<SecurityContext> processor;
+    private final Map<String, String> claimHeaders;
+    private final Cache<String, VerifiedToken> verified;
+    private final Cache<String, Boolean> rejected;
+    private final Counter validCounter;
+    private final Counter invalidCounter;
+
+    public JwtVerifier(MeterRegistry meterRegistry,
+                       @Value("${gateway.jwt.hmac-secret:}") String hmacSecret,
+                       @Value("${gateway.jwt.jwks-path:}") String jwksPath,
+                       @Value("${gateway.jwt.issuer:}") String issuer,
+                       @Value("${gateway.jwt.audience:}") String audience,
+                       @Value("${gateway.jwt.clock-skew:30s}") Duration clockSkew,
+                       @Value("${gateway.jwt.claim-headers:sub=X-User-Id}") String claimHeaders,
+                       @Value("${gateway.jwt.cache.max-size:100000}") long cacheMaxSize,
+                       @Value("${gateway.jwt.cache.max-ttl:15m}") Duration cacheMaxTtl,
+                       @Value("${gateway.jwt.negative-cache.max-size:100000}") long negativeCacheMaxSize,
+                       @Value("${gateway.jwt.negative-cache.ttl:30s}") Duration negativeCacheTtl) {
+        this.processor = processor(loadKeys(hmacSecret, jwksPath), issuer, audience, clockSkew);
+        this.claimHeaders = parseClaimHeaders(claimHeaders);
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        Duration untilExpiry = Duration.between(Instant.now(), token.expiresAt());
+                        return Math.max(0, Math.min(untilExpiry.toNanos(), cacheMaxTtl.toNanos()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        this.rejected = Caffeine.newBuilder()
+                .maximumSize(negativeCacheMaxSize)
+                .expireAfterWrite(negativeCacheTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "gateway.jwt.tokens");
+        CaffeineCacheMetrics.monitor(meterRegistry, rejected, "gateway.jwt.rejected");
+        this.validCounter = meterRegistry.counter("gateway.jwt.verifications", "result", "valid");
+        this.invalidCounter = meterRegistry.counter("gateway.jwt.verifications", "result", "invalid");
+    }
+
+    /** Jeton vérifié, ou vide si la signature, l'expiration ou les claims sont refusés. */
+    public Optional<VerifiedToken> verify(String token) {
+        String hash = JwtUtils.sha256(token);
+        if (rejected.getIfPresent(hash) != null) {
+            return Optional.empty();
+        }
+        // Une seule vérification par jeton même si plusieurs requêtes arrivent ensemble
+        VerifiedToken result = verified.get(hash, key -> verifySignature(token));
+        if (result == null) {
+            rejected.put(hash, Boolean.TRUE);
+        }
+        return Optional.ofNullable(result);
+    }
+
+    /** En-têtes posés par le gateway, à retirer des requêtes entrantes. */
+    public Collection<String> claimHeaderNames() {
+        return claimHeaders.values();
+    }
+
+    private VerifiedToken verifySignature(String token) {
+        JWTClaimsSet claims;
+        try {
+            claims = processor.process(token, null);
+        } catch (ParseException | BadJOSEException | JOSEException e) {
+            // Le détail reste dans les logs du gateway
+            invalidCounter.increment();
+            log.debug("JWT rejected: {}", e.getMessage());
+            return null;
+        }
+        validCounter.increment();
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        claimHeaders.forEach((claim, header) -> {
+            String value = headerValue(claims.getClaim(claim));
+            if (value != null) {
+                headers.put(header, value);
+            }
+        });
+        return new VerifiedToken(claims.getSubject(), Map.copyOf(headers), claims.getExpirationTime().toInstant());
+    }
+
+    private static String headerValue(Object claim) {
+        String value;
+        if (claim == null) {
+            return null;
+        } else if (claim instanceof Collection<?> values) {
+            value = values.stream().map(String::valueOf).collect(Collectors.joining(","));
+        } else if (claim instanceof Date date) {
+            value = String.valueOf(date.toInstant().getEpochSecond());
+        } else {
+            value = String.valueOf(claim);
+        }
+        // Une valeur multi-ligne ne peut pas être transmise comme en-tête
+        return value.indexOf('\r') < 0 && value.indexOf('\n') < 0 ? value : null;
+    }
+
+    private static ConfigurableJWTProcessor<SecurityContext> processor(JWKSet keys, String issuer,
+                                                                       String audience, Duration clockSkew) {
+        Set<JWSAlgorithm> algorithms = keys.getKeys().stream()
+                .map(key -> key instanceof OctetSequenceKey ? JWSAlgorithm.HS256 : JWSAlgorithm.RS256)
+                .collect(Collectors.toSet());
+        if (algorithms.isEmpty()) {
+            // Aucune clé : les deux algorithmes restent déclarés, aucun jeton ne trouvera de clé
+            algorithms = Set.of(JWSAlgorithm.HS256, JWSAlgorithm.RS256);
+        }
+
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, new ImmutableJWKSet<>(keys)));
+
+        JWTClaimsSet exactMatch = issuer.isBlank() ? null : new JWTClaimsSet.Builder().issuer(issuer).build();
+        DefaultJWTClaimsVerifier<SecurityContext> claimsVerifier = new DefaultJWTClaimsVerifier<>(
+                audience.isBlank() ? null : audience, exactMatch, Set.of("sub", "exp"));
+        claimsVerifier.setMaxClockSkew((int) clockSkew.toSeconds());
+        processor.setJWTClaimsSetVerifier(claimsVerifier);
+        return processor;
+    }
+
+    private static JWKSet loadKeys(String hmacSecret, String jwksPath) {
+        List<JWK> keys = new ArrayList<>();
+        if (!hmacSecret.isBlank()) {
+            byte[] secret = hmacSecret.getBytes(StandardCharsets.UTF_8);
+            if (secret.length < MIN_HMAC_SECRET_BYTES) {
+                throw new IllegalArgumentException("gateway.jwt.hmac-secret must be at least "
+                        + MIN_HMAC_SECRET_BYTES + " bytes for HS256");
+            }
+            keys.add(new OctetSequenceKey.Builder(secret).algorithm(JWSAlgorithm.HS256).build());
+        }
+        if (!jwksPath.isBlank()) {
+            try {
+                // Seules les parties publiques des clés RSA servent à la vérification
+                JWKSet.load(new File(jwksPath)).toPublicJWKSet().getKeys().stream()
+                        .filter(key -> key instanceof RSAKey)
+                        .forEach(keys::add);
+            } catch (IOException | ParseException e) {
+                throw new IllegalStateException("Cannot load JWKS file " + jwksPath, e);
+            }
+        }
+        if (keys.isEmpty()) {
+            log.warn("No JWT key configured (gateway.jwt.hmac-secret, gateway.jwt.jwks-path): every JWT will be rejected");
+        }
+        return new JWKSet(keys);
+    }
+
+    // "sub=X-User-Id,roles=X-User-Roles"
+    private static Map<String, String> parseClaimHeaders(String value) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("JWT claim header must be <claim>=<header>, got " + entry);
+            }
+            headers.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+        }
+        return Map.copyOf(headers);
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.security;
+
+/**
+ *
+ * @author steve
+ */
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * JWT dont la signature et les claims ont été vérifiés : sujet, en-têtes à
+ * transmettre aux services (nom d'en-tête vers valeur) et expiration.
+ */
+public record VerifiedToken(String subject, Map<String, String> claimHeaders, Instant expiresAt) {
+}
@@ -8,11 +8,32 @@ package com.stevecompany.apiGateWayWillBank.util;
  *
  * @author steve
  */
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
 public class JwtUtils {
 
-    private static final String EXPECTED_TOKEN = "Bearer WILLBANK_SECRET_TOKEN";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /** Jeton d'un en-tête "Authorization: Bearer ...", ou null. */
+    public static String bearerToken(String authHeader) {
+        if (authHeader == null || !authHeader.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        String token = authHeader.substring(BEARER_PREFIX.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
 
-    public static boolean isValid(String authHeader) {
-        return EXPECTED_TOKEN.equals(authHeader);
+    /** Empreinte SHA-256 d'un jeton : clé de cache sans conserver le jeton lui-même. */
+    public static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Algorithme obligatoire sur toute JVM
+            throw new IllegalStateException(e);
+        }
     }
 }
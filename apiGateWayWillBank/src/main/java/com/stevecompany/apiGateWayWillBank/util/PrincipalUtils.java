@@ -0,0 +1,37 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.stevecompany.apiGateWayWillBank.util;
+
+/**
+ *
+ * @author steve
+ */
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Identité de l'appelant posée par l'authentification dans
+ * PRINCIPAL_ATTRIBUTE. La limitation de débit se rabat sur l'adresse IP du
+ * client ; le cache de réponses n'utilise que le sujet d'un JWT vérifié.
+ */
+public class PrincipalUtils {
+
+    public static final String PRINCIPAL_ATTRIBUTE = "willbank.principal";
+
+    public static String resolve(ServerWebExchange exchange) {
+        String principal = authenticated(exchange);
+        if (principal != null) {
+            return principal;
+        }
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        return remote != null && remote.getAddress() != null ? remote.getAddress().getHostAddress() : "unknown";
+    }
+
+    /** Sujet du JWT vérifié, ou null (jeton fixe de l'UI, requête sans JWT). */
+    public static String authenticated(ServerWebExchange exchange) {
+        return exchange.getAttribute(PRINCIPAL_ATTRIBUTE);
+    }
+}
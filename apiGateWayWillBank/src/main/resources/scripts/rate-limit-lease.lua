@@ -0,0 +1,28 @@
+-- Seau à jetons partagé (GCRA) : réserve jusqu'à ARGV[3] jetons en un seul appel.
+-- KEYS[1] : clé du seau ; la valeur est l'instant d'arrivée théorique (TAT), en µs
+-- ARGV[1] : intervalle d'émission d'un jeton (µs)
+-- ARGV[2] : tolérance de burst = burst * intervalle (µs)
+-- ARGV[3] : nombre de jetons demandés
+-- Retour : {jetons accordés, attente avant le prochain jeton en µs}
+-- L'horloge est celle du serveur Redis : pas de dérive entre réplicas du gateway.
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+local interval = tonumber(ARGV[1])
+local tolerance = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local tat = tonumber(redis.call('GET', KEYS[1])) or now
+if tat < now then
+    tat = now
+end
+
+local available = math.floor((tolerance - (tat - now)) / interval)
+local granted = math.min(requested, available)
+if granted <= 0 then
+    return {0, tat + interval - tolerance - now}
+end
+
+tat = tat + granted * interval
+-- Seau de nouveau plein à l'instant TAT : la clé peut alors disparaître
+redis.call('SET', KEYS[1], string.format('%d', tat), 'PX', math.ceil((tat - now) / 1000) + 1)
+return {granted, 0}
@@ -0,0 +1,97 @@
+package com.stevecompany.apiGateWayWillBank.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Politiques par route (lecture de la configuration), seaux indépendants par
+ * (route, principal) et métriques, avec le store local et une horloge fixée
+ * par le test.
+ */
+class RateLimiterTest {
+
+	private final AtomicLong clock = new AtomicLong();
+	private SimpleMeterRegistry registry;
+	private LocalRateLimitStore store;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		store = new LocalRateLimitStore(registry, 1000, Duration.ofMinutes(1), clock::get);
+	}
+
+	@Test
+	void parsesDefaultAndRoutePolicies() {
+		RateLimiter limiter = limiter("10:20", " transaction-service = 20:40 ,composite-service=0.5:10,");
+
+		assertThat(limiter.policyFor("transaction-service")).isEqualTo(new RateLimitPolicy(20, 40));
+		assertThat(limiter.policyFor("composite-service")).isEqualTo(new RateLimitPolicy(0.5, 10));
+		assertThat(limiter.policyFor("account-service")).isEqualTo(new RateLimitPolicy(10, 20));
+	}
+
+	@Test
+	void rejectsInvalidPolicies() {
+		assertThatThrownBy(() -> limiter("10", "")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> limiter("0:10", "")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> limiter("10:0", "")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> limiter("10:10", "transaction-service")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> limiter("10:10", "transaction-service=fast:10"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void bucketsAreIndependentPerRouteAndPrincipal() {
+		RateLimiter limiter = limiter("1:2", "transaction-service=1:3");
+
+		assertThat(allowed(limiter, "transaction-service", "alice", 10)).isEqualTo(3);
+		assertThat(allowed(limiter, "transaction-service", "bob", 10)).isEqualTo(3);
+		assertThat(allowed(limiter, "account-service", "alice", 10)).isEqualTo(2);
+	}
+
+	@Test
+	void rejectedRequestRecoversAfterRetryAfter() {
+		RateLimiter limiter = limiter("1:1", "");
+		assertThat(limiter.tryAcquire("account-service", "alice").block().allowed()).isTrue();
+
+		RateLimitDecision rejected = limiter.tryAcquire("account-service", "alice").block();
+		assertThat(rejected.allowed()).isFalse();
+		assertThat(rejected.retryAfterSeconds()).isEqualTo(1);
+
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(rejected.retryAfterSeconds()));
+		assertThat(limiter.tryAcquire("account-service", "alice").block().allowed()).isTrue();
+	}
+
+	@Test
+	void countsAllowedAndRejectedRequestsPerRoute() {
+		RateLimiter limiter = limiter("1:2", "");
+
+		allowed(limiter, "account-service", "alice", 5);
+
+		assertThat(registry.get("gateway.ratelimit.requests")
+				.tag("route", "account-service").tag("outcome", "allowed").counter().count()).isEqualTo(2);
+		assertThat(registry.get("gateway.ratelimit.requests")
+				.tag("route", "account-service").tag("outcome", "rejected").counter().count()).isEqualTo(3);
+	}
+
+	private RateLimiter limiter(String defaultPolicy, String routePolicies) {
+		return new RateLimiter(store, registry, defaultPolicy, routePolicies);
+	}
+
+	private static int allowed(RateLimiter limiter, String routeId, String principal, int requests) {
+		int allowed = 0;
+		for (int i = 0; i < requests; i++) {
+			if (limiter.tryAcquire(routeId, principal).block().allowed()) {
+				allowed++;
+			}
+		}
+		return allowed;
+	}
+}
@@ -0,0 +1,126 @@
+package com.stevecompany.apiGateWayWillBank.ratelimit;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Deux réplicas du gateway partagent un serveur Redis embarqué : la limite
+ * est globale, et la pré-allocation évite un aller-retour par requête.
+ */
+class RedisRateLimitStoreTest {
+
+	// Pratiquement pas de remplissage pendant le test : seul le burst compte
+	private static final RateLimitPolicy POLICY = new RateLimitPolicy(0.001, 20);
+	private static final int LEASE_SIZE = 5;
+
+	private RedisServer redis;
+	private LettuceConnectionFactory connectionFactory;
+	private SimpleMeterRegistry registryA;
+	private SimpleMeterRegistry registryB;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		redis = RedisServer.newRedisServer();
+		redis.start();
+		connectionFactory = connect(redis.getBindPort());
+		registryA = new SimpleMeterRegistry();
+		registryB = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		connectionFactory.destroy();
+		redis.stop();
+	}
+
+	@Test
+	void limitIsSharedAcrossReplicas() {
+		RedisRateLimitStore replicaA = store(connectionFactory, registryA);
+		RedisRateLimitStore replicaB = store(connectionFactory, registryB);
+
+		int allowed = 0;
+		for (int i = 0; i < 60; i++) {
+			RedisRateLimitStore replica = i % 2 == 0 ? replicaA : replicaB;
+			if (replica.tryAcquire("transaction-service|10.0.0.1", POLICY).block().allowed()) {
+				allowed++;
+			}
+		}
+
+		// Le burst est commun aux deux instances, pas multiplié par leur nombre
+		assertThat(allowed).isEqualTo(20);
+		// 4 lots de 5 jetons, puis un rejet mémorisé par instance
+		assertThat(roundTrips()).isEqualTo(6);
+	}
+
+	@Test
+	void keysAreIndependent() {
+		RedisRateLimitStore store = store(connectionFactory, registryA);
+
+		for (int i = 0; i < 20; i++) {
+			store.tryAcquire("transaction-service|10.0.0.1", POLICY).block();
+		}
+
+		assertThat(store.tryAcquire("transaction-service|10.0.0.1", POLICY).block().allowed()).isFalse();
+		assertThat(store.tryAcquire("transaction-service|10.0.0.2", POLICY).block().allowed()).isTrue();
+		assertThat(store.tryAcquire("account-service|10.0.0.1", POLICY).block().allowed()).isTrue();
+	}
+
+	@Test
+	void rejectionCarriesRetryAfter() {
+		RateLimitPolicy policy = new RateLimitPolicy(1, 1);
+		RedisRateLimitStore store = store(connectionFactory, registryA);
+
+		assertThat(store.tryAcquire("composite-service|10.0.0.1", policy).block().allowed()).isTrue();
+		RateLimitDecision rejected = store.tryAcquire("composite-service|10.0.0.1", policy).block();
+
+		assertThat(rejected.allowed()).isFalse();
+		assertThat(rejected.retryAfterNanos()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(1).toNanos());
+		assertThat(rejected.retryAfterSeconds()).isEqualTo(1);
+	}
+
+	@Test
+	void fallsBackToLocalBucketsWhenRedisIsDown() throws IOException {
+		// Port libéré : plus aucun serveur n'y écoute
+		RedisServer stopped = RedisServer.newRedisServer();
+		stopped.start();
+		int port = stopped.getBindPort();
+		stopped.stop();
+		LettuceConnectionFactory unreachable = connect(port);
+		try {
+			RedisRateLimitStore store = store(unreachable, registryA);
+
+			assertThat(store.tryAcquire("transaction-service|10.0.0.1", POLICY).block().allowed()).isTrue();
+			assertThat(registryA.counter("gateway.ratelimit.store.fallbacks", "store", "redis").count()).isEqualTo(1);
+		} finally {
+			unreachable.destroy();
+		}
+	}
+
+	private RedisRateLimitStore store(LettuceConnectionFactory factory, SimpleMeterRegistry registry) {
+		return new RedisRateLimitStore(new ReactiveStringRedisTemplate(factory),
+				new LocalRateLimitStore(registry, 1000, Duration.ofMinutes(1)),
+				registry, LEASE_SIZE, Duration.ofMinutes(1), 1000);
+	}
+
+	private double roundTrips() {
+		return registryA.counter("gateway.ratelimit.store.calls", "store", "redis").count()
+				+ registryB.counter("gateway.ratelimit.store.calls", "store", "redis").count();
+	}
+
+	private static LettuceConnectionFactory connect(int port) {
+		LettuceConnectionFactory factory = new LettuceConnectionFactory("127.0.0.1", port);
+		factory.afterPropertiesSet();
+		factory.start();
+		return factory;
+	}
+}
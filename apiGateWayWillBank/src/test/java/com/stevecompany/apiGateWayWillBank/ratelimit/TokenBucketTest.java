@@ -0,0 +1,120 @@
+package com.stevecompany.apiGateWayWillBank.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seau GCRA piloté par une horloge fixée par le test (instants en
+ * nanosecondes passés à tryAcquire) : burst, remplissage, Retry-After et
+ * concurrence sur le CAS, sans dépendre du temps réel.
+ */
+class TokenBucketTest {
+
+	// Un jeton toutes les 100 ms, burst de 5
+	private static final RateLimitPolicy POLICY = new RateLimitPolicy(10, 5);
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	void burstIsAllowedThenRejected() {
+		TokenBucket bucket = new TokenBucket(POLICY, 0);
+
+		for (long expectedRemaining = 4; expectedRemaining >= 0; expectedRemaining--) {
+			RateLimitDecision decision = bucket.tryAcquire(0);
+			assertThat(decision.allowed()).isTrue();
+			assertThat(decision.remaining()).isEqualTo(expectedRemaining);
+			assertThat(decision.limit()).isEqualTo(5);
+		}
+
+		RateLimitDecision rejected = bucket.tryAcquire(0);
+		assertThat(rejected.allowed()).isFalse();
+		assertThat(rejected.remaining()).isZero();
+		assertThat(rejected.retryAfterNanos()).isEqualTo(100 * MS);
+	}
+
+	@Test
+	void tokensRefillAtTheConfiguredRate() {
+		TokenBucket bucket = new TokenBucket(POLICY, 0);
+		drain(bucket, 0);
+
+		// 250 ms plus tard : deux jetons rendus, le troisième dans 50 ms
+		assertThat(bucket.tryAcquire(250 * MS).allowed()).isTrue();
+		assertThat(bucket.tryAcquire(250 * MS).allowed()).isTrue();
+		RateLimitDecision rejected = bucket.tryAcquire(250 * MS);
+		assertThat(rejected.allowed()).isFalse();
+		assertThat(rejected.retryAfterNanos()).isEqualTo(50 * MS);
+
+		assertThat(bucket.tryAcquire(300 * MS).allowed()).isTrue();
+	}
+
+	@Test
+	void idleBucketNeverHoldsMoreThanTheBurst() {
+		TokenBucket bucket = new TokenBucket(POLICY, 0);
+
+		long later = TimeUnit.HOURS.toNanos(1);
+		assertThat(drain(bucket, later)).isEqualTo(5);
+	}
+
+	@Test
+	void retryAfterIsRoundedUpToTheSecond() {
+		// Un jeton toutes les 5 s
+		TokenBucket bucket = new TokenBucket(new RateLimitPolicy(0.2, 1), 0);
+		assertThat(bucket.tryAcquire(0).allowed()).isTrue();
+
+		assertThat(bucket.tryAcquire(0).retryAfterSeconds()).isEqualTo(5);
+		assertThat(bucket.tryAcquire(4_500 * MS).retryAfterSeconds()).isEqualTo(1);
+		assertThat(bucket.tryAcquire(4_999 * MS).retryAfterSeconds()).isEqualTo(1);
+		assertThat(bucket.tryAcquire(5_000 * MS).allowed()).isTrue();
+	}
+
+	@Test
+	void concurrentRequestsNeverExceedTheBurst() throws Exception {
+		RateLimitPolicy policy = new RateLimitPolicy(1, 100);
+		TokenBucket bucket = new TokenBucket(policy, 0);
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					int allowed = 0;
+					for (int i = 0; i < 1000; i++) {
+						// Même instant pour tous : aucun jeton rendu pendant le test
+						if (bucket.tryAcquire(0).allowed()) {
+							allowed++;
+						}
+					}
+					return allowed;
+				}));
+			}
+			start.countDown();
+
+			int total = 0;
+			for (Future<Integer> result : results) {
+				total += result.get(10, TimeUnit.SECONDS);
+			}
+			// Chaque acceptation est un CAS réussi : ni jeton perdu, ni jeton accordé deux fois
+			assertThat(total).isEqualTo(100);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static int drain(TokenBucket bucket, long nowNanos) {
+		int allowed = 0;
+		while (bucket.tryAcquire(nowNanos).allowed()) {
+			allowed++;
+		}
+		return allowed;
+	}
+}
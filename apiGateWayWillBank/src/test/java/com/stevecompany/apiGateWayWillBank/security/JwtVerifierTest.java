@@ -0,0 +1,140 @@
+package com.stevecompany.apiGateWayWillBank.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Vérification HS256 et RS256 (JWKS), refus des jetons falsifiés ou expirés,
+ * et une seule vérification de signature par jeton, accepté ou refusé, grâce aux caches.
+ */
+class JwtVerifierTest {
+
+	private static final String SECRET = "willbank-test-secret-of-at-least-32-bytes";
+	private static final String CLAIM_HEADERS = "sub=X-User-Id,customerId=X-Customer-Id,roles=X-User-Roles";
+
+	@TempDir
+	Path dir;
+
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+	}
+
+	@Test
+	void acceptsHs256TokenAndExtractsClaimHeaders() throws JOSEException {
+		JwtVerifier verifier = verifier(SECRET, "");
+		String token = hs256(SECRET, claims("alice", Instant.now().plusSeconds(300)));
+
+		VerifiedToken verified = verifier.verify(token).orElseThrow();
+
+		assertThat(verified.subject()).isEqualTo("alice");
+		assertThat(verified.claimHeaders())
+				.containsEntry("X-User-Id", "alice")
+				.containsEntry("X-Customer-Id", "42")
+				.containsEntry("X-User-Roles", "CLIENT,ADVISOR");
+	}
+
+	@Test
+	void acceptsRs256TokenFromJwksFile() throws JOSEException, IOException {
+		RSAKey key = new RSAKeyGenerator(2048).keyID("willbank-1").generate();
+		Path jwks = dir.resolve("jwks.json");
+		// Le fichier peut contenir la clé privée : seule la partie publique est utilisée
+		Files.writeString(jwks, new JWKSet(key).toString(false), StandardCharsets.UTF_8);
+		JwtVerifier verifier = verifier("", jwks.toString());
+
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("willbank-1").build(),
+				claims("bob", Instant.now().plusSeconds(300)));
+		jwt.sign(new RSASSASigner(key));
+
+		assertThat(verifier.verify(jwt.serialize())).map(VerifiedToken::subject).contains("bob");
+	}
+
+	@Test
+	void rejectsForgedExpiredAndMalformedTokens() throws JOSEException {
+		JwtVerifier verifier = verifier(SECRET, "");
+
+		String forged = hs256("another-secret-of-at-least-32-bytes!!", claims("alice", Instant.now().plusSeconds(300)));
+		String expired = hs256(SECRET, claims("alice", Instant.now().minusSeconds(120)));
+
+		assertThat(verifier.verify(forged)).isEmpty();
+		assertThat(verifier.verify(expired)).isEmpty();
+		assertThat(verifier.verify("WILLBANK_SECRET_TOKEN")).isEmpty();
+		assertThat(registry.counter("gateway.jwt.verifications", "result", "invalid").count()).isEqualTo(3);
+	}
+
+	@Test
+	void verifiesEachTokenSignatureOnce() throws JOSEException {
+		JwtVerifier verifier = verifier(SECRET, "");
+		String token = hs256(SECRET, claims("alice", Instant.now().plusSeconds(300)));
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(verifier.verify(token)).isPresent();
+		}
+
+		assertThat(registry.counter("gateway.jwt.verifications", "result", "valid").count()).isEqualTo(1);
+	}
+
+	@Test
+	void verifiesEachRejectedTokenSignatureOnce() throws JOSEException {
+		JwtVerifier verifier = verifier(SECRET, "");
+		String forged = hs256("another-secret-of-at-least-32-bytes!!", claims("alice", Instant.now().plusSeconds(300)));
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(verifier.verify(forged)).isEmpty();
+		}
+
+		assertThat(registry.counter("gateway.jwt.verifications", "result", "invalid").count()).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsShortHmacSecret() {
+		assertThatThrownBy(() -> verifier("too-short", ""))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private JwtVerifier verifier(String secret, String jwksPath) {
+		return new JwtVerifier(registry, secret, jwksPath, "", "", Duration.ofSeconds(30),
+				CLAIM_HEADERS, 1000, Duration.ofMinutes(15), 1000, Duration.ofSeconds(30));
+	}
+
+	private static JWTClaimsSet claims(String subject, Instant expiresAt) {
+		return new JWTClaimsSet.Builder()
+				.subject(subject)
+				.expirationTime(Date.from(expiresAt))
+				.claim("customerId", 42)
+				.claim("roles", List.of("CLIENT", "ADVISOR"))
+				.build();
+	}
+
+	private static String hs256(String secret, JWTClaimsSet claims) throws JOSEException {
+		SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+		jwt.sign(new MACSigner(secret.getBytes(StandardCharsets.UTF_8)));
+		return jwt.serialize();
+	}
+}